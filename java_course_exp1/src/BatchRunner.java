@@ -0,0 +1,185 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// 非交互批处理: 一次执行命令文件或参数中的全部命令, 结果以CSV或JSON Lines写入缓冲的标准输出, 供cron调用
+// 用法: java GradeSystem --batch [--format csv|json] [-f 命令文件] [命令 ; 命令 ...]
+// 命令: load [文件] | import 文件 | find 学号 | stats [维度] | rank 维度 K [asc] | percentile 维度 P
+//       range 维度 最低 最高 | prefix 姓名前缀 | export 文件 | save
+// 维度可写名称或菜单编号; 出错时在标准错误输出说明并返回非0退出码
+class BatchRunner {
+    private final Manager mgr;
+    private final boolean json;
+    private final PrintWriter out;
+
+    private BatchRunner(Manager mgr, boolean json, PrintWriter out) {
+        this.mgr = mgr;
+        this.json = json;
+        this.out = out;
+    }
+
+    // args为--batch之后的参数
+    public static int run(Manager mgr, String[] args) {
+        String format = "csv";
+        List<String> commands = new ArrayList<>();
+        StringBuilder inline = new StringBuilder();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format" -> {
+                        format = args[++i].toLowerCase(Locale.ROOT);
+                        if (!format.equals("csv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("不支持的输出格式: " + args[i]);
+                        }
+                    }
+                    case "-f" -> commands.addAll(Files.readAllLines(Paths.get(args[++i]), StandardCharsets.UTF_8));
+                    default -> inline.append(args[i]).append(' ');
+                }
+            }
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            return 2;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        commands.addAll(Arrays.asList(inline.toString().split(";")));
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16), false);
+        BatchRunner runner = new BatchRunner(mgr, "json".equals(format), out);
+        int n = 0;
+        try {
+            for (String line : commands) {
+                String cmd = line.trim();
+                if (cmd.isEmpty() || cmd.startsWith("#")) continue;
+                n++;
+                runner.exec(cmd.split("\\s+"));
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("第" + n + "条命令出错: " + e.getMessage());
+            return 1;
+        } finally {
+            out.flush();
+            mgr.close();
+        }
+    }
+
+    private void exec(String[] cmd) throws IOException {
+        switch (cmd[0]) {
+            case "load" -> load(cmd.length > 1 ? cmd[1] : null);
+            case "import" -> {
+                BulkLoader.Result r = BulkLoader.load(Paths.get(arg(cmd, 1)), mgr);
+                // 批量导入不逐条记日志, 与菜单导入一样直接写快照, 否则close时日志为空会跳过保存
+                if (mgr.hasJournal() && !mgr.checkpoint()) throw new IOException("导入的数据未能写入快照");
+                emit("import", new String[]{"rows", "rejected", "ms", "rows_per_sec"},
+                        List.<Object[]>of(new Object[]{r.rows(), r.rejected(), r.nanos() / 1_000_000, Math.round(r.rowsPerSec())}));
+            }
+            case "find" -> {
+                Student s = mgr.get(arg(cmd, 1));
+                emit("find", Rows.studentHeader(mgr.schema()), s == null ? List.of() : List.<Object[]>of(Rows.student(mgr.schema(), s)));
+            }
+            case "stats" -> stats(cmd.length > 1 ? dim(cmd[1]) : -1);
+            case "range" -> students("range", mgr.range(dim(arg(cmd, 1)),
+                    Integer.parseInt(arg(cmd, 2)), Integer.parseInt(arg(cmd, 3))));
+            case "prefix" -> students("prefix", mgr.byNamePrefix(arg(cmd, 1)));
+            case "rank" -> {
+                int dim = dim(arg(cmd, 1));
+                int k = Rows.count(arg(cmd, 2));
+                boolean asc = cmd.length > 3 && cmd[3].equals("asc");
+                emit("rank", Rows.rankHeader(mgr.schema(), dim), Rows.rank(asc ? mgr.bottomK(dim, k) : mgr.topK(dim, k), dim));
+            }
+            case "percentile" -> {
+                int dim = dim(arg(cmd, 1));
+                double p = Rows.percent(arg(cmd, 2));
+                emit("percentile", new String[]{"dim", "p", "score"},
+                        List.<Object[]>of(new Object[]{mgr.schema().dim(dim).name(), p, mgr.percentile(dim, p)}));
+            }
+            case "export" -> {
+                mgr.exportCsv(arg(cmd, 1));
+                emit("export", new String[]{"file", "rows"}, List.<Object[]>of(new Object[]{cmd[1], mgr.count()}));
+            }
+            case "save" -> {
+                if (!mgr.checkpoint()) throw new IOException("快照写入失败");
+                emit("save", new String[]{"file", "rows"}, List.<Object[]>of(new Object[]{Manager.SNAPSHOT_PATH, mgr.count()}));
+            }
+            default -> throw new IllegalArgumentException("未知命令: " + cmd[0]);
+        }
+    }
+
+    // 不带参数时与交互模式启动相同: 快照(或文本) + 日志回放, 并挂接日志
+    private void load(String file) throws IOException {
+        long t0 = System.nanoTime();
+        if (file != null && !file.endsWith(".dat")) {
+            BulkLoader.load(Paths.get(file), mgr);
+        } else {
+            Path snapshot = Paths.get(file == null ? Manager.SNAPSHOT_PATH : file);
+            long seq = -1;
+            if (Files.exists(snapshot)) seq = Snapshot.load(snapshot, mgr).seq();
+            else if (Files.exists(Paths.get(Manager.FILE_PATH))) BulkLoader.load(Paths.get(Manager.FILE_PATH), mgr);
+            if (file == null) {
+                Journal journal = Journal.open(Paths.get(Manager.JOURNAL_PATH));
+                journal.replay(mgr, Math.max(seq, 0));
+                mgr.attachJournal(journal);
+            }
+        }
+        emit("load", new String[]{"rows", "ms"},
+                List.<Object[]>of(new Object[]{mgr.count(), (System.nanoTime() - t0) / 1_000_000}));
+    }
+
+    private void stats(int only) {
+        Schema schema = mgr.schema();
+        List<Object[]> rows = new ArrayList<>();
+        for (int d = 0; d < schema.dims(); d++) {
+            if (only >= 0 && d != only) continue;
+            int[] b = mgr.bands(d);
+            rows.add(new Object[]{schema.dim(d).name(), mgr.count(), Rows.round2(mgr.classAvg(d)), Rows.round2(mgr.stdDev(d)),
+                    mgr.minScore(d), mgr.maxScore(d), mgr.percentile(d, 50), mgr.percentile(d, 90),
+                    b[0], b[1], b[2], b[3], b[4]});
+        }
+        emit("stats", new String[]{"dim", "count", "mean", "stddev", "min", "max", "median", "p90",
+                "A", "B", "C", "D", "E"}, rows);
+    }
+
+    private void students(String command, List<Student> list) {
+        emit(command, Rows.studentHeader(mgr.schema()), Rows.students(mgr.schema(), list));
+    }
+
+    private int dim(String name) {
+        return Rows.dim(mgr.schema(), name);
+    }
+
+    private static String arg(String[] cmd, int i) {
+        if (i >= cmd.length) throw new IllegalArgumentException(cmd[0] + " 缺少参数");
+        return cmd[i];
+    }
+
+    // CSV: 每条命令一段, 首行为表头, 段间空行; JSON: 每条命令一行 {"command":..,"rows":[{..}]}
+    private void emit(String command, String[] header, List<Object[]> rows) {
+        if (json) {
+            StringBuilder sb = new StringBuilder("{\"command\":");
+            Json.value(sb, command);
+            sb.append(",\"rows\":");
+            Json.rows(sb, header, rows);
+            out.println(sb.append('}'));
+        } else {
+            csvLine(header);
+            for (Object[] row : rows) csvLine(row);
+            out.println();
+        }
+    }
+
+    private void csvLine(Object[] cells) {
+        for (int c = 0; c < cells.length; c++) {
+            if (c > 0) out.print(',');
+            String v = String.valueOf(cells[c]);
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0) {
+                v = '"' + v.replace("\"", "\"\"") + '"';
+            }
+            out.print(v);
+        }
+        out.println();
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.*;
+import java.lang.foreign.Arena;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+// 批量导入: 按行边界把文件切块并行解析, 坏行连同行号写入拒绝报告而不中断导入
+class BulkLoader {
+    private static final int CHUNK_SIZE = 16 << 20; // 每块约16MB
+
+    record Reject(long line, String reason, String text) {}
+
+    record Result(int rows, int rejected, long nanos, Path rejectsFile) {
+        public double rowsPerSec() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+    }
+
+    // 单块的解析结果, 行号为块内行号
+    private static final class Chunk {
+        int lines, size;
+        int[] lineNo;
+        String[] ids, names;
+        short[][] scores;
+        final ArrayList<Reject> rejects = new ArrayList<>();
+
+        Chunk(int cap) {
+            lineNo = new int[cap];
+            ids = new String[cap];
+            names = new String[cap];
+            scores = new short[cap][];
+        }
+
+        void add(int line, String id, String name, short[] row) {
+            if (size == ids.length) {
+                int cap = size * 2;
+                lineNo = Arrays.copyOf(lineNo, cap);
+                ids = Arrays.copyOf(ids, cap);
+                names = Arrays.copyOf(names, cap);
+                scores = Arrays.copyOf(scores, cap);
+            }
+            lineNo[size] = line;
+            ids[size] = id;
+            names[size] = name;
+            scores[size] = row;
+            size++;
+        }
+    }
+
+    public static Result load(Path file, Manager mgr) throws IOException {
+        long t0 = System.nanoTime();
+        Schema schema = mgr.schema();
+        Chunk[] chunks;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(ch);
+            chunks = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> parse(ch, bounds[i], bounds[i + 1], schema))
+                    .toArray(Chunk[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // 存储非线程安全, 按块顺序串行插入, 学号重复在此检出
+        int total = 0;
+        for (Chunk c : chunks) total += c.size;
+        mgr.reserve(total);
+
+        ArrayList<Reject> rejects = new ArrayList<>();
+        int rows = 0;
+        long base = 0;
+        for (Chunk c : chunks) {
+            for (Reject r : c.rejects) {
+                rejects.add(new Reject(base + r.line(), r.reason(), r.text()));
+            }
+            for (int i = 0; i < c.size; i++) {
+                if (mgr.tryAdd(c.ids[i], c.names[i], c.scores[i]) == Manager.OK) {
+                    rows++;
+                } else {
+                    rejects.add(new Reject(base + c.lineNo[i], "学号重复",
+                            new Student(c.ids[i], c.names[i], c.scores[i], schema).toFile()));
+                }
+            }
+            base += c.lines;
+        }
+        long nanos = System.nanoTime() - t0;
+
+        Path report = null;
+        if (!rejects.isEmpty()) {
+            rejects.sort(Comparator.comparingLong(Reject::line));
+            report = file.resolveSibling(file.getFileName() + ".rejects.txt");
+            try (BufferedWriter w = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                for (Reject r : rejects) {
+                    w.write("第" + r.line() + "行 " + r.reason() + ": " + r.text());
+                    w.newLine();
+                }
+            }
+        }
+        return new Result(rows, rejects.size(), nanos, report);
+    }
+
+    // 块边界对齐到行首: 从名义切点向后找到第一个换行符
+    private static long[] split(FileChannel ch) throws IOException {
+        long size = ch.size();
+        ArrayList<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (long p = CHUNK_SIZE; p < size; p += CHUNK_SIZE) {
+            long cut = nextLineStart(ch, p - 1, probe);
+            if (cut > bounds.get(bounds.size() - 1) && cut < size) bounds.add(cut);
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel ch, long from, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (true) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) return ch.size();
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+    }
+
+    // 每块在自己的Arena里映射, 解析完立即解除映射
+    private static Chunk parse(FileChannel ch, long start, long end, Schema schema) {
+        try (Arena arena = Arena.ofConfined()) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start, arena).asByteBuffer();
+            int n = buf.limit();
+            Chunk c = new Chunk(Math.max(16, n / 24));
+            byte[] line = new byte[256]; // 复用的行缓冲
+            int[] cut = new int[schema.subjects() + 3];
+            int p = 0;
+            while (p < n) {
+                int q = p;
+                while (q < n && buf.get(q) != '\n') q++;
+                int len = q - p;
+                if (len > line.length) line = new byte[Math.max(len, line.length * 2)];
+                buf.get(p, line, 0, len);
+                if (len > 0 && line[len - 1] == '\r') len--;
+                c.lines++;
+                parseLine(c, line, len, cut, schema);
+                p = q + 1;
+            }
+            return c;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 手写分词: 只定位逗号, 成绩直接由字节解析, 不产生中间字符串
+    // 行格式: 学号,姓名,各科成绩(按schema科目顺序); '#'开头的行为注释或表头
+    private static void parseLine(Chunk c, byte[] line, int len, int[] cut, Schema schema) {
+        int from = 0, to = len;
+        while (from < to && line[from] == ' ') from++;
+        if (from == to || line[from] == '#') return; // 空行与注释跳过
+
+        int expected = schema.subjects() + 1; // 逗号个数
+        int fields = 0;
+        cut[0] = -1;
+        for (int i = 0; i < len; i++) {
+            if (line[i] == ',') {
+                if (++fields > expected) break;
+                cut[fields] = i;
+            }
+        }
+        if (fields != expected) {
+            c.rejects.add(new Reject(c.lines, "字段数不为" + (expected + 1), text(line, 0, len)));
+            return;
+        }
+        cut[expected + 1] = len;
+        String id = text(line, 0, cut[1]).trim();
+        if (id.isEmpty()) {
+            c.rejects.add(new Reject(c.lines, "学号为空", text(line, 0, len)));
+            return;
+        }
+        short[] row = new short[schema.subjects()];
+        for (int s = 0; s < row.length; s++) {
+            int v = score(line, cut[s + 2] + 1, cut[s + 3]);
+            if (v < 0) {
+                c.rejects.add(new Reject(c.lines, "成绩格式错误", text(line, 0, len)));
+                return;
+            }
+            if (v > schema.subject(s).full()) {
+                c.rejects.add(new Reject(c.lines, schema.subject(s).name() + "成绩超出0-"
+                        + schema.subject(s).full() + "范围", text(line, 0, len)));
+                return;
+            }
+            row[s] = (short) v;
+        }
+        c.add(c.lines, id, text(line, cut[1] + 1, cut[2]).trim(), row);
+    }
+
+    private static String text(byte[] b, int from, int to) {
+        return new String(b, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // 非数字返回-1; 超过short范围即停止累加, 交由范围检查拒绝
+    private static int score(byte[] b, int from, int to) {
+        while (from < to && b[from] == ' ') from++;
+        while (to > from && b[to - 1] == ' ') to--;
+        if (from == to) return -1;
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            if (v <= Short.MAX_VALUE) v = v * 10 + d;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.*;
+
+// 列式存储: 成绩矩阵按科目分列存为short[], 姓名字典编码; 统计扫描为连续数组访问
+class ColumnStore implements StudentStore {
+    private final Schema schema;
+    private String[] ids = new String[16];
+    private int[] names = new int[16]; // 姓名在字典中的编号
+    private final short[][] cols;      // cols[科目序号][行]
+    private int size = 0;
+    private long version = 0;
+    private final HashMap<String, Integer> pos = new HashMap<>();
+    private final ArrayList<String> dict = new ArrayList<>();
+    private final HashMap<String, Integer> codes = new HashMap<>();
+
+    public ColumnStore(Schema schema) {
+        this.schema = schema;
+        this.cols = new short[schema.subjects()][16];
+    }
+
+    public Schema schema() { return schema; }
+    public int size() { return size; }
+    public long version() { return version; }
+    public String id(int i) { return ids[i]; }
+    public String name(int i) { return dict.get(names[i]); }
+    public int subject(int i, int s) { return cols[s][i]; }
+
+    public int indexOf(String id) {
+        Integer i = pos.get(id);
+        return i == null ? -1 : i;
+    }
+
+    public boolean add(String id, String name, short[] scores) {
+        if (pos.putIfAbsent(id, size) != null) return false;
+        if (size == ids.length) ensureCapacity(size + 1);
+        ids[size] = id;
+        write(size++, name, scores);
+        return true;
+    }
+
+    public void set(int i, String name, short[] scores) {
+        write(i, name, scores);
+    }
+
+    private void write(int i, String name, short[] scores) {
+        names[i] = encode(name);
+        for (int s = 0; s < cols.length; s++) {
+            cols[s][i] = scores[s];
+        }
+        version++;
+    }
+
+    private int encode(String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            code = dict.size();
+            dict.add(name);
+            codes.put(name, code);
+        }
+        return code;
+    }
+
+    public void removeAt(int i) {
+        pos.remove(ids[i]);
+        int last = --size;
+        if (i != last) {
+            ids[i] = ids[last];
+            names[i] = names[last];
+            for (short[] col : cols) col[i] = col[last];
+            pos.put(ids[i], i);
+        }
+        ids[last] = null;
+        version++;
+    }
+
+    public void ensureCapacity(int n) {
+        if (n <= ids.length) return;
+        int cap = Math.max(n, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, cap);
+        names = Arrays.copyOf(names, cap);
+        for (int s = 0; s < cols.length; s++) {
+            cols[s] = Arrays.copyOf(cols[s], cap);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+// 多用户并发版本: 学号->学生放在ConcurrentHashMap中, Student不可变, 按学号查找无锁
+// 数据按学号哈希分成若干分段, 每段有自己的行表和各维度分桶索引(DimStats), 随写入增量维护:
+// 写者只取本段的分段锁(同一学号的修改与日志顺序一致), 在本段index写锁下做O(维度数)的更新, 不同分段的写入互不等待
+// 读者逐段持index读锁(均值/标准差先乐观读)取计数、分桶或行引用, 在锁外合并排序; 同一时刻只阻塞一个分段的写者,
+// 且只持锁O(满分)或O(本段结果)的时间
+// 一次写入只改一个分段, 因此读到的每段都是完整状态, 不会看到写了一半的修改
+class ConcurrentManager implements Closeable {
+    private static final int STRIPES = 16; // 读操作要合并全部分段, 分段数取够写者并发即可
+    private static final int SHARD_SHIFT = Integer.numberOfLeadingZeros(STRIPES - 1);
+
+    private final Schema schema;
+    private final ConcurrentHashMap<String, Student> students = new ConcurrentHashMap<>();
+    private final Shard[] shards = new Shard[STRIPES];
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>(); // "姓名\0学号"
+    private final Journal journal;
+
+    // 一个分段; 行号与Manager一样保持紧凑, 删除时用末行填补空位
+    private final class Shard {
+        final ReentrantLock lock = new ReentrantLock(); // 写者持有, 覆盖检查、更新与记日志
+        final StampedLock index = new StampedLock();    // 保护以下字段
+        final DimStats[] stats = new DimStats[schema.dims()];
+        final HashMap<String, Integer> rowOf = new HashMap<>();
+        Student[] rows = new Student[16];
+        int size;
+
+        Shard() {
+            for (int d = 0; d < stats.length; d++) stats[d] = new DimStats(schema.dim(d).full());
+        }
+
+        // insert/replace/remove需持有index写锁(构造时除外)
+        void insert(Student s) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            int r = size++;
+            rows[r] = s;
+            rowOf.put(s.getId(), r);
+            for (int d = 0; d < stats.length; d++) stats[d].add(r, s.score(d));
+            names.add(Manager.nameKey(s.getName(), s.getId()));
+        }
+
+        void replace(Student old, Student s) {
+            int r = rowOf.get(s.getId());
+            for (int d = 0; d < stats.length; d++) {
+                stats[d].remove(r, old.score(d));
+                stats[d].add(r, s.score(d));
+            }
+            rows[r] = s;
+            names.remove(Manager.nameKey(old.getName(), old.getId()));
+            names.add(Manager.nameKey(s.getName(), s.getId()));
+        }
+
+        void remove(Student old) {
+            int r = rowOf.remove(old.getId());
+            int last = --size;
+            for (int d = 0; d < stats.length; d++) stats[d].remove(r, old.score(d));
+            if (r != last) {
+                Student moved = rows[last];
+                for (int d = 0; d < stats.length; d++) stats[d].move(last, r, moved.score(d));
+                rows[r] = moved;
+                rowOf.put(moved.getId(), r);
+            }
+            rows[last] = null;
+            names.remove(Manager.nameKey(old.getName(), old.getId()));
+        }
+    }
+
+    // 接管已加载好数据的Manager及其日志
+    public ConcurrentManager(Manager source) {
+        this.schema = source.schema();
+        for (int i = 0; i < STRIPES; i++) shards[i] = new Shard();
+        source.forEach(s -> {
+            students.put(s.getId(), s);
+            shardFor(s.getId()).insert(s);
+        });
+        this.journal = source.detachJournal();
+    }
+
+    public Schema schema() { return schema; }
+    public long version() { return version.get(); }
+
+    public int count() {
+        return students.size();
+    }
+
+    // 取乘法散列的高位: 若与HashMap一样取低位, 同一分段内rowOf的键会挤在少数桶里
+    private Shard shardFor(String id) {
+        return shards[(id.hashCode() * 0x9E3779B9) >>> SHARD_SHIFT];
+    }
+
+    // 依次在各分段的index读锁下执行action
+    private void eachShard(Consumer<Shard> action) {
+        for (Shard sh : shards) {
+            long stamp = sh.index.readLock();
+            try {
+                action.accept(sh);
+            } finally {
+                sh.index.unlockRead(stamp);
+            }
+        }
+    }
+
+    public int add(String id, String name, short[] scores) {
+        if (!schema.valid(scores)) return Manager.BAD_SCORE;
+        Student s = new Student(id, name, scores.clone(), schema);
+        Shard sh = shardFor(id);
+        sh.lock.lock();
+        try {
+            if (students.containsKey(id)) return Manager.DUPLICATE;
+            long stamp = sh.index.writeLock();
+            try {
+                students.put(id, s);
+                sh.insert(s);
+                version.incrementAndGet();
+            } finally {
+                sh.index.unlockWrite(stamp);
+            }
+            log(Journal.ADD, id, name, scores);
+        } finally {
+            sh.lock.unlock();
+        }
+        written();
+        return Manager.OK;
+    }
+
+    public int update(String id, String name, short[] scores) {
+        if (!schema.valid(scores)) return Manager.BAD_SCORE;
+        Student s = new Student(id, name, scores.clone(), schema);
+        Shard sh = shardFor(id);
+        sh.lock.lock();
+        try {
+            if (!students.containsKey(id)) return Manager.NOT_FOUND;
+            long stamp = sh.index.writeLock();
+            try {
+                sh.replace(students.put(id, s), s);
+                version.incrementAndGet();
+            } finally {
+                sh.index.unlockWrite(stamp);
+            }
+            log(Journal.UPDATE, id, name, scores);
+        } finally {
+            sh.lock.unlock();
+        }
+        written();
+        return Manager.OK;
+    }
+
+    public int delete(String id) {
+        Shard sh = shardFor(id);
+        sh.lock.lock();
+        try {
+            if (!students.containsKey(id)) return Manager.NOT_FOUND;
+            long stamp = sh.index.writeLock();
+            try {
+                sh.remove(students.remove(id));
+                version.incrementAndGet();
+            } finally {
+                sh.index.unlockWrite(stamp);
+            }
+            log(Journal.DELETE, id, null, null);
+        } finally {
+            sh.lock.unlock();
+        }
+        written();
+        return Manager.OK;
+    }
+
+    private void log(byte op, String id, String name, short[] scores) {
+        if (journal == null) return;
+        try {
+            journal.append(op, id, name, scores);
+        } catch (IOException e) {
+            throw new UncheckedIOException("日志写入失败", e);
+        }
+    }
+
+    // 在分段锁外按需压缩日志
+    private void written() {
+        if (journal != null && journal.shouldCompact(students.size()) && checkpointLock.tryLock()) {
+            try {
+                checkpoint();
+            } finally {
+                checkpointLock.unlock();
+            }
+        }
+    }
+
+    public Student get(String id) {
+        return students.get(id);
+    }
+
+    public double classAvg(int dim) {
+        long[] m = moments(dim);
+        return m[0] == 0 ? 0 : (double) m[1] / m[0];
+    }
+
+    public double stdDev(int dim) {
+        long[] m = moments(dim);
+        if (m[0] == 0) return 0;
+        double mean = (double) m[1] / m[0];
+        return Math.sqrt(Math.max(0, (double) m[2] / m[0] - mean * mean));
+    }
+
+    // 人数、总分、平方和; 每段只读三个long, 先乐观读, 期间该段有写入再退回读锁
+    private long[] moments(int dim) {
+        long[] m = new long[3];
+        for (Shard sh : shards) {
+            DimStats st = sh.stats[dim];
+            long stamp = sh.index.tryOptimisticRead();
+            long n = st.count(), sum = st.sum(), sumSq = st.sumSq();
+            if (!sh.index.validate(stamp)) {
+                stamp = sh.index.readLock();
+                try {
+                    n = st.count();
+                    sum = st.sum();
+                    sumSq = st.sumSq();
+                } finally {
+                    sh.index.unlockRead(stamp);
+                }
+            }
+            m[0] += n;
+            m[1] += sum;
+            m[2] += sumSq;
+        }
+        return m;
+    }
+
+    public int[] bands(int dim) {
+        int[] bands = new int[5];
+        eachShard(sh -> {
+            int[] b = sh.stats[dim].bands();
+            for (int i = 0; i < bands.length; i++) bands[i] += b[i];
+        });
+        return bands;
+    }
+
+    public List<Student> topK(int dim, int k) {
+        return top(dim, k, true);
+    }
+
+    public List<Student> bottomK(int dim, int k) {
+        return top(dim, k, false);
+    }
+
+    // 每段在读锁内只复制本段前k名的行引用和得分, 锁外按分数合并
+    private List<Student> top(int dim, int k, boolean highest) {
+        if (k < 0) throw new IllegalArgumentException("人数不能为负: " + k);
+        int full = schema.dim(dim).full();
+        int[] rowIds = new int[Math.min(k, 64)], scores = new int[rowIds.length]; // 各段共用, 长度不超过k
+        Student[] found = new Student[(int) Math.min((long) k * STRIPES, students.size())];
+        int[] key = new int[found.length];
+        int n = 0;
+        for (Shard sh : shards) {
+            long stamp = sh.index.readLock();
+            try {
+                int want = Math.min(k, sh.size);
+                if (rowIds.length < want) {
+                    rowIds = new int[want];
+                    scores = new int[want];
+                }
+                int m = sh.stats[dim].top(rowIds, scores, highest);
+                if (n + m > found.length) {
+                    found = Arrays.copyOf(found, Math.max(n + m, found.length * 2));
+                    key = Arrays.copyOf(key, found.length);
+                }
+                for (int j = 0; j < m; j++) {
+                    found[n + j] = sh.rows[rowIds[j]];
+                    key[n + j] = highest ? full - scores[j] : scores[j];
+                }
+                n += m;
+            } finally {
+                sh.index.unlockRead(stamp);
+            }
+        }
+        return sortByKey(found, key, n, full, k);
+    }
+
+    public List<Student> range(int dim, int lo, int hi) {
+        List<Student> parts = new ArrayList<>();
+        eachShard(sh -> {
+            for (int r : sh.stats[dim].range(lo, hi)) parts.add(sh.rows[r]);
+        });
+        Student[] found = parts.toArray(new Student[0]);
+        int[] key = new int[found.length];
+        for (int i = 0; i < found.length; i++) key[i] = found[i].score(dim);
+        return sortByKey(found, key, found.length, schema.dim(dim).full(), found.length);
+    }
+
+    // 前n个按key(0..full)计数排序, 稳定(同分保持分段内顺序), 最多取limit个
+    private static List<Student> sortByKey(Student[] found, int[] key, int n, int full, int limit) {
+        int[] start = new int[full + 2];
+        for (int i = 0; i < n; i++) start[key[i] + 1]++;
+        for (int v = 0; v <= full; v++) start[v + 1] += start[v];
+        Student[] sorted = new Student[n];
+        for (int i = 0; i < n; i++) sorted[start[key[i]]++] = found[i];
+        return Arrays.asList(sorted).subList(0, Math.min(limit, n));
+    }
+
+    public List<Student> byNamePrefix(String prefix) {
+        List<Student> list = new ArrayList<>();
+        for (String id : Manager.idsWithPrefix(names, prefix)) {
+            Student s = students.get(id);
+            if (s != null) list.add(s);
+        }
+        return list;
+    }
+
+    // 未找到学号时返回0; 排名为1 + 各段中得分更高的人数
+    public int rank(String id, int dim) {
+        Student s = students.get(id);
+        if (s == null) return 0;
+        int score = s.score(dim);
+        int[] above = {0};
+        eachShard(sh -> above[0] += sh.stats[dim].rank(score) - 1);
+        return above[0] + 1;
+    }
+
+    // 合并各段的分数直方图后求百分位
+    public int percentile(int dim, double p) {
+        int[] freq = new int[schema.dim(dim).full() + 1];
+        eachShard(sh -> sh.stats[dim].addFreq(freq));
+        return DimStats.percentile(freq, p);
+    }
+
+    public int maxScore(int dim) {
+        int[] max = {0};
+        eachShard(sh -> {
+            if (sh.stats[dim].count() > 0) max[0] = Math.max(max[0], sh.stats[dim].max());
+        });
+        return max[0];
+    }
+
+    public int minScore(int dim) {
+        int[] min = {Integer.MAX_VALUE};
+        eachShard(sh -> {
+            if (sh.stats[dim].count() > 0) min[0] = Math.min(min[0], sh.stats[dim].min());
+        });
+        return min[0] == Integer.MAX_VALUE ? 0 : min[0]; // 无人时返回0, 与max一致
+    }
+
+    // 写快照需要与日志一致的数据, 因此按固定顺序取得全部分段锁, 短暂阻塞写者
+    public boolean checkpoint() {
+        for (Shard sh : shards) sh.lock.lock();
+        try {
+            RowStore store = new RowStore(schema);
+            store.ensureCapacity(students.size());
+            for (Student s : students.values()) store.add(s.getId(), s.getName(), s.scores());
+            if (journal != null) journal.compact(Paths.get(Manager.SNAPSHOT_PATH), store, null);
+            else Snapshot.write(Paths.get(Manager.SNAPSHOT_PATH), store, null, 0);
+            return true;
+        } catch (IOException e) {
+            System.out.println("快照写入失败: " + e.getMessage());
+            return false;
+        } finally {
+            for (Shard sh : shards) sh.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal == null) return;
+        if (!journal.isEmpty()) checkpoint();
+        journal.close();
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.*;
+
+// 单个维度的增量统计与排名索引: 按得分分桶记录行号, 随增删改维护和、平方和与等级直方图
+// 分桶数为满分+1(常数), 最值/排名/百分位/前K名只需扫描分桶, 与人数无关
+class DimStats {
+    private final int full;          // 满分
+    private final int[][] buckets;   // buckets[v]: 得分为v的行号
+    private final int[] freq;        // freq[v]: buckets[v]中的有效个数
+    private int[] slot = new int[16]; // slot[row]: 该行在所属分桶中的位置
+    private final int[] bands = new int[5]; // A-E
+    private int count;
+    private long sum, sumSq;
+
+    public DimStats(int full) {
+        this.full = full;
+        this.freq = new int[full + 1];
+        this.buckets = new int[full + 1][];
+        for (int v = 0; v <= full; v++) {
+            buckets[v] = new int[4];
+        }
+    }
+
+    public void add(int row, int score) {
+        count++;
+        sum += score;
+        sumSq += (long) score * score;
+        bands[band(score, full)]++;
+
+        int[] b = buckets[score];
+        if (freq[score] == b.length) b = buckets[score] = Arrays.copyOf(b, b.length * 2);
+        if (row >= slot.length) slot = Arrays.copyOf(slot, Math.max(row + 1, slot.length * 2));
+        b[freq[score]] = row;
+        slot[row] = freq[score]++;
+    }
+
+    public void remove(int row, int score) {
+        count--;
+        sum -= score;
+        sumSq -= (long) score * score;
+        bands[band(score, full)]--;
+
+        int[] b = buckets[score];
+        int last = b[--freq[score]];
+        b[slot[row]] = last;
+        slot[last] = slot[row];
+    }
+
+    // 存储把行from搬到了to(删除时用末行填补空位)
+    public void move(int from, int to, int score) {
+        if (to >= slot.length) slot = Arrays.copyOf(slot, Math.max(to + 1, slot.length * 2));
+        buckets[score][slot[from]] = to;
+        slot[to] = slot[from];
+    }
+
+    // 换算为百分制后划分等级
+    static int band(int score, int full) {
+        int pct = score * 100 / full;
+        if (pct >= 90) return 0;
+        if (pct >= 80) return 1;
+        if (pct >= 70) return 2;
+        if (pct >= 60) return 3;
+        return 4;
+    }
+
+    public int count() { return count; }
+    public long sum() { return sum; }
+    public long sumSq() { return sumSq; }
+    public double mean() { return count == 0 ? 0 : (double) sum / count; }
+
+    public double variance() {
+        if (count == 0) return 0;
+        double m = mean();
+        return Math.max(0, (double) sumSq / count - m * m);
+    }
+
+    public int[] bands() { return bands.clone(); }
+
+    // 无人时max与min都返回0, 与均值、百分位一致
+    public int max() {
+        for (int v = full; v > 0; v--) {
+            if (freq[v] > 0) return v;
+        }
+        return 0;
+    }
+
+    public int min() {
+        if (count == 0) return 0;
+        for (int v = 0; v < full; v++) {
+            if (freq[v] > 0) return v;
+        }
+        return full;
+    }
+
+    // 得分为score的任一行, 无人时返回-1
+    public int holder(int score) {
+        return freq[score] > 0 ? buckets[score][0] : -1;
+    }
+
+    // 从高分(或低分)桶依次取出前k个行号
+    public int[] top(int k, boolean highest) {
+        if (k < 0) throw new IllegalArgumentException("人数不能为负: " + k);
+        int[] rows = new int[Math.min(k, count)];
+        top(rows, new int[rows.length], highest);
+        return rows;
+    }
+
+    // 同上, 写入调用方提供的数组(可重复使用), 最多写满rows, 同时把各行得分写入scores; 返回写入个数
+    public int top(int[] rows, int[] scores, boolean highest) {
+        int n = 0;
+        for (int i = 0; i <= full && n < rows.length; i++) {
+            int v = highest ? full - i : i;
+            int take = Math.min(freq[v], rows.length - n);
+            System.arraycopy(buckets[v], 0, rows, n, take);
+            Arrays.fill(scores, n, n + take, v);
+            n += take;
+        }
+        return n;
+    }
+
+    // 得分在[lo, hi]内的行号, 按分数从低到高; 只访问区间内的分桶
+    public int[] range(int lo, int hi) {
+        lo = Math.max(lo, 0);
+        hi = Math.min(hi, full);
+        int n = 0;
+        for (int v = lo; v <= hi; v++) n += freq[v];
+        int[] rows = new int[n];
+        n = 0;
+        for (int v = lo; v <= hi; v++) {
+            System.arraycopy(buckets[v], 0, rows, n, freq[v]);
+            n += freq[v];
+        }
+        return rows;
+    }
+
+    // 排名: 1 + 得分更高的人数, 同分同名次
+    public int rank(int score) {
+        int above = 0;
+        for (int v = full; v > score; v--) above += freq[v];
+        return above + 1;
+    }
+
+    public int percentile(double p) {
+        return percentile(freq, p);
+    }
+
+    // 把本维度各分数的人数累加到hist(长度为满分+1), 用于合并多个分段
+    public void addFreq(int[] hist) {
+        for (int v = 0; v <= full; v++) hist[v] += freq[v];
+    }
+
+    // 最近秩法百分位: 第ceil(p% * n)小的得分; freq[v]为得分v的人数
+    static int percentile(int[] freq, double p) {
+        if (!(p >= 0 && p <= 100)) throw new IllegalArgumentException("百分位应在0~100之间: " + p);
+        long count = 0;
+        for (int f : freq) count += f;
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        for (int v = 0; v < freq.length; v++) {
+            seen += freq[v];
+            if (seen >= target) return v;
+        }
+        return freq.length - 1;
+    }
+}
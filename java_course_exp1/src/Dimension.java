@@ -0,0 +1,4 @@
+// 成绩维度: 科目直接存储; 派生维度(如总分)为若干科目的加权和, 取整
+record Dimension(String name, int full, int subject, int[] terms, double[] weights) {
+    public boolean derived() { return subject < 0; }
+}
@@ -0,0 +1,333 @@
+import com.sun.management.ThreadMXBean;
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// 成绩引擎基准测试(无构建工具, 不依赖JMH): 先预热再限时测量, 报告吞吐量、单次延迟分位数、每次操作分配字节数和GC次数
+// 用法: java GradeBench gen 行数 [文件]        生成合成的students.txt
+//       java GradeBench [--sizes 1000,10000,...] [--ops add,find,...] [--warmup 毫秒] [--time 毫秒] [--csv 结果文件]
+// 操作: add find classAvg bands topBottom sortByTotal sortById snapshotWrite loadSnapshot loadCsv concurrent
+// 与Manager同名的操作调用Manager的同名方法(输出丢弃); bands为showDist的计数部分, snapshotWrite为checkpoint写快照的部分,
+// loadSnapshot/loadCsv为启动时loadFromFile的两条路径
+// 10^7行时建议 -Xmx8g; 存储格式同主程序由 -Dgrade.store 选择; 在src下 javac GradeBench.java 编译(同目录的其余源文件按类名自动找到)后以 java GradeBench 运行
+class GradeBench {
+    private static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final List<String> ALL_OPS = List.of("add", "find", "classAvg", "bands", "topBottom",
+            "sortByTotal", "sortById", "snapshotWrite", "loadSnapshot", "loadCsv", "concurrent");
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private static final String[] SYLLABLES = {"an", "bo", "chen", "da", "fei", "gang", "hui", "jia", "kai", "lin",
+            "ming", "na", "ping", "qi", "rui", "shan", "tao", "wei", "xin", "yu"};
+
+    private static long warmupMs = 1000;
+    private static long measureMs = 2000;
+    private static volatile long sink; // 防止被测代码的结果被优化掉
+
+    record Result(String op, int rows, long ops, double opsPerSec, double avgNs, long p50Ns, long p99Ns,
+                  double bytesPerOp, long gcCount, long gcMs) {}
+
+    // 一次调用执行若干个逻辑操作, 延迟按调用耗时均摊
+    interface Body {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("gen")) {
+            int rows = Integer.parseInt(args[1]);
+            Path file = Paths.get(args.length > 2 ? args[2] : Manager.FILE_PATH);
+            generate(schema(), rows, file);
+            System.out.println("已生成 " + rows + " 行: " + file);
+            return;
+        }
+
+        int[] sizes = DEFAULT_SIZES;
+        List<String> ops = ALL_OPS;
+        Path csv = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes" -> sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--ops" -> ops = List.of(args[++i].split(","));
+                case "--warmup" -> warmupMs = Long.parseLong(args[++i]);
+                case "--time" -> measureMs = Long.parseLong(args[++i]);
+                case "--csv" -> csv = Paths.get(args[++i]);
+                default -> throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+
+        Schema schema = schema();
+        List<Result> results = new ArrayList<>();
+        System.out.printf("%-16s %9s %14s %12s %10s %10s %12s %5s %7s%n",
+                "Benchmark", "rows", "ops/s", "avg(ns)", "p50(ns)", "p99(ns)", "B/op", "gc", "gc(ms)");
+        Path dir = Files.createTempDirectory("gradebench");
+        for (int n : sizes) {
+            Data data = Data.generate(schema, n, 42);
+            for (String op : ops) {
+                for (Result r : bench(op, schema, data, dir)) {
+                    results.add(r);
+                    System.out.printf("%-16s %9d %14.1f %12.1f %10d %10d %12.1f %5d %7d%n", r.op(), r.rows(),
+                            r.opsPerSec(), r.avgNs(), r.p50Ns(), r.p99Ns(), r.bytesPerOp(), r.gcCount(), r.gcMs());
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) Files.delete(f);
+        }
+        Files.delete(dir);
+        if (csv != null) writeCsv(csv, results);
+    }
+
+    private static Schema schema() {
+        try {
+            return Schema.load(Paths.get(Schema.PATH));
+        } catch (IOException | RuntimeException e) {
+            return Schema.defaults();
+        }
+    }
+
+    private static Manager newManager(Schema schema) {
+        return new Manager(StudentStore.create(System.getProperty("grade.store", "row"), schema));
+    }
+
+    private static Manager filled(Schema schema, Data data) {
+        Manager mgr = newManager(schema);
+        mgr.reserve(data.ids.length);
+        for (int i = 0; i < data.ids.length; i++) mgr.tryAdd(data.ids[i], data.names[i], data.scores[i]);
+        return mgr;
+    }
+
+    private static List<Result> bench(String op, Schema schema, Data data, Path dir) throws Exception {
+        int n = data.ids.length;
+        int dims = schema.dims();
+        Random rnd = new Random(7);
+        switch (op) {
+            case "add" -> {
+                return List.of(measure(op, n, n, () -> sink += filled(schema, data).count()));
+            }
+            case "find" -> {
+                Manager mgr = filled(schema, data);
+                return List.of(measure(op, n, 1024, () -> {
+                    for (int i = 0; i < 1024; i++) {
+                        Student s = mgr.get(data.ids[rnd.nextInt(n)]);
+                        sink += s == null ? 0 : 1;
+                    }
+                }));
+            }
+            case "classAvg" -> {
+                Manager mgr = filled(schema, data);
+                return List.of(measure(op, n, 1024, () -> {
+                    for (int i = 0; i < 1024; i++) sink += (long) mgr.classAvg(i % dims);
+                }));
+            }
+            case "bands" -> {
+                Manager mgr = filled(schema, data);
+                return List.of(measure(op, n, 1024, () -> {
+                    for (int i = 0; i < 1024; i++) sink += mgr.bands(i % dims)[0];
+                }));
+            }
+            case "topBottom" -> {
+                Manager mgr = filled(schema, data);
+                return List.of(quiet(op, n, 1024, () -> {
+                    for (int i = 0; i < 1024; i++) mgr.topBottom(i % dims);
+                }));
+            }
+            // 排序结果按数据版本缓存, 每次先原样改写一行使缓存失效, 测的是数据变化后的重新排序
+            case "sortByTotal", "sortById" -> {
+                Manager mgr = filled(schema, data);
+                boolean byId = op.equals("sortById");
+                return List.of(quiet(op, n, 1, () -> {
+                    int k = rnd.nextInt(n);
+                    mgr.tryUpdate(data.ids[k], data.names[k], data.scores[k]);
+                    if (byId) mgr.sortById();
+                    else mgr.sortByTotal();
+                }));
+            }
+            case "snapshotWrite" -> {
+                StudentStore store = StudentStore.create(System.getProperty("grade.store", "row"), schema);
+                store.ensureCapacity(n);
+                for (int i = 0; i < n; i++) store.add(data.ids[i], data.names[i], data.scores[i]);
+                Path file = dir.resolve("save.dat");
+                return List.of(measure(op, n, n, () -> Snapshot.write(file, store, null, 0)));
+            }
+            case "loadSnapshot" -> {
+                Path file = dir.resolve("load.dat");
+                StudentStore store = StudentStore.create("row", schema);
+                for (int i = 0; i < n; i++) store.add(data.ids[i], data.names[i], data.scores[i]);
+                Snapshot.write(file, store, null, 0);
+                return List.of(measure(op, n, n, () -> sink += Snapshot.load(file, newManager(schema)).rows()));
+            }
+            case "loadCsv" -> {
+                Path file = dir.resolve("load.txt");
+                data.write(file);
+                return List.of(measure(op, n, n, () -> sink += BulkLoader.load(file, newManager(schema)).rows()));
+            }
+            case "concurrent" -> {
+                return concurrent(schema, data);
+            }
+            default -> throw new IllegalArgumentException("未知操作: " + op);
+        }
+    }
+
+    // ConcurrentManager在1..核数个线程下的混合负载(90%读: 查找/均值/排行, 10%写: 修改), 用于观察多核扩展性
+    private static List<Result> concurrent(Schema schema, Data data) throws Exception {
+        int n = data.ids.length;
+        ConcurrentManager mgr = new ConcurrentManager(filled(schema, data));
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Result> results = new ArrayList<>();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            int t = threads;
+            ExecutorService pool = Executors.newFixedThreadPool(t);
+            Body round = () -> {
+                List<Future<?>> fs = new ArrayList<>(t);
+                for (int w = 0; w < t; w++) {
+                    fs.add(pool.submit(() -> {
+                        ThreadLocalRandom r = ThreadLocalRandom.current();
+                        for (int i = 0; i < 1024; i++) {
+                            int k = r.nextInt(n);
+                            int mix = r.nextInt(100);
+                            if (mix < 10) mgr.update(data.ids[k], data.names[k], data.scores[r.nextInt(n)]);
+                            else if (mix < 60) sink += mgr.get(data.ids[k]) == null ? 0 : 1;
+                            else if (mix < 90) sink += (long) mgr.classAvg(k % schema.dims());
+                            else sink += mgr.topK(0, 10).size();
+                        }
+                    }));
+                }
+                for (Future<?> f : fs) f.get();
+            };
+            results.add(measure("concurrent-" + t + "t", n, 1024L * t, round));
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    // 菜单方法会打印结果, 测量期间把标准输出丢弃
+    private static Result quiet(String op, int rows, long opsPerCall, Body body) throws Exception {
+        PrintStream out = System.out;
+        System.setOut(DISCARD);
+        try {
+            return measure(op, rows, opsPerCall, body);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    // 限时循环调用body: 预热阶段不计; 测量阶段至少3次调用, 每次调用记录一个均摊延迟样本
+    private static Result measure(String op, int rows, long opsPerCall, Body body) throws Exception {
+        long end = System.nanoTime() + warmupMs * 1_000_000;
+        do {
+            body.run();
+        } while (System.nanoTime() < end);
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long gc0 = gcCount(), gcMs0 = gcMillis();
+        long alloc0 = allocatedBytes(threads);
+        long[] samples = new long[1024];
+        int calls = 0;
+        long start = System.nanoTime();
+        end = start + measureMs * 1_000_000;
+        long now = start;
+        while (calls < 3 || now < end) {
+            long t0 = System.nanoTime();
+            body.run();
+            now = System.nanoTime();
+            if (calls == samples.length) samples = Arrays.copyOf(samples, calls * 2);
+            samples[calls++] = (now - t0) / opsPerCall;
+        }
+        long alloc = allocatedBytes(threads) - alloc0;
+        long ops = calls * opsPerCall;
+        double elapsed = now - start;
+
+        long[] sorted = Arrays.copyOf(samples, calls);
+        Arrays.sort(sorted);
+        return new Result(op, rows, ops, ops / (elapsed / 1e9), elapsed / ops,
+                sorted[(calls - 1) / 2], sorted[(int) Math.ceil(calls * 0.99) - 1],
+                (double) alloc / ops, gcCount() - gc0, gcMillis() - gcMs0);
+    }
+
+    // 所有存活线程的累计分配字节数: concurrent的工作线程、loadCsv的并行解析和大表的并行排序都不在调用线程上分配;
+    // 测量期间结束的线程其分配量会丢失, 基准中的线程池都在预热阶段就已建好
+    private static long allocatedBytes(ThreadMXBean threads) {
+        long sum = 0;
+        for (long b : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (b > 0) sum += b;
+        }
+        return sum;
+    }
+
+    private static long gcCount() {
+        long c = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) c += Math.max(0, gc.getCollectionCount());
+        return c;
+    }
+
+    private static long gcMillis() {
+        long t = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) t += Math.max(0, gc.getCollectionTime());
+        return t;
+    }
+
+    private static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            pw.println("op,rows,ops,ops_per_sec,avg_ns,p50_ns,p99_ns,bytes_per_op,gc_count,gc_ms");
+            for (Result r : results) {
+                pw.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%d,%d,%.1f,%d,%d%n", r.op(), r.rows(), r.ops(), r.opsPerSec(),
+                        r.avgNs(), r.p50Ns(), r.p99Ns(), r.bytesPerOp(), r.gcCount(), r.gcMs());
+            }
+        }
+        System.out.println("结果已写入 " + file);
+    }
+
+    private static void generate(Schema schema, int rows, Path file) throws IOException {
+        Data.generate(schema, rows, 42).write(file);
+    }
+
+    // 合成数据: 学号为乱序的不重复数字, 姓名由音节组合(约8000种), 成绩近似正态分布并截断到0-满分
+    private static final class Data {
+        final String[] ids;
+        final String[] names;
+        final short[][] scores;
+
+        private Data(int n) {
+            ids = new String[n];
+            names = new String[n];
+            scores = new short[n][];
+        }
+
+        static Data generate(Schema schema, int n, long seed) {
+            Data d = new Data(n);
+            SplittableRandom r = new SplittableRandom(seed);
+            for (int i = 0; i < n; i++) {
+                d.ids[i] = Integer.toUnsignedString(i * 0x9E3779B1); // 乘奇数在2^32上是双射, 学号不会重复
+                d.names[i] = SYLLABLES[r.nextInt(SYLLABLES.length)] + SYLLABLES[r.nextInt(SYLLABLES.length)]
+                        + SYLLABLES[r.nextInt(SYLLABLES.length)];
+                short[] s = new short[schema.subjects()];
+                for (int k = 0; k < s.length; k++) {
+                    int full = schema.subject(k).full();
+                    double v = full * 0.75 + full * 0.12 * gaussian(r);
+                    s[k] = (short) Math.max(0, Math.min(full, Math.round(v)));
+                }
+                d.scores[i] = s;
+            }
+            return d;
+        }
+
+        private static double gaussian(SplittableRandom r) {
+            double u = r.nextDouble(), v = r.nextDouble();
+            return Math.sqrt(-2 * Math.log(1 - u)) * Math.cos(2 * Math.PI * v);
+        }
+
+        void write(Path file) throws IOException {
+            try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < ids.length; i++) {
+                    sb.setLength(0);
+                    sb.append(ids[i]).append(',').append(names[i]);
+                    for (short v : scores[i]) sb.append(',').append(v);
+                    w.write(sb.append('\n').toString());
+                }
+            }
+        }
+    }
+}
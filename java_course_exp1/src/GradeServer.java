@@ -0,0 +1,199 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+// 嵌入式HTTP查询服务: JDK自带HttpServer, 每个请求一个虚拟线程, 数据由ConcurrentManager提供
+// GET /students/{学号} | GET /stats[?dim=] | GET /rank?dim=&k=[&order=asc] | GET /percentile?dim=&p=
+// GET /search?dim=&min=&max= 按分数范围 | GET /search?prefix= 按姓名前缀
+// POST /students 正文"学号,姓名,成绩..." | PUT /students/{学号} 正文"姓名,成绩..." | DELETE /students/{学号}
+// 聚合查询的响应体按请求URI缓存并记下计算时的数据版本; 写入使版本递增, 旧缓存随之失效
+class GradeServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int CACHE_LIMIT = 1024; // 不同查询参数过多时整体清空
+
+    private final ConcurrentManager mgr;
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+
+    private record Cached(long version, byte[] body) {}
+
+    private GradeServer(ConcurrentManager mgr) {
+        this.mgr = mgr;
+    }
+
+    // 关闭JVM时停止服务并写快照
+    public static void start(ConcurrentManager mgr, int port) throws IOException {
+        GradeServer app = new GradeServer(mgr);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", app::handle);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            try {
+                mgr.close();
+            } catch (IOException e) {
+                System.out.println("日志关闭失败: " + e.getMessage());
+            }
+        }));
+        System.out.println("HTTP服务已启动: http://localhost:" + port + "/");
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        int status = 200;
+        byte[] body;
+        try {
+            String[] path = ex.getRequestURI().getPath().substring(1).split("/");
+            String method = ex.getRequestMethod();
+            if (path[0].equals("students")) {
+                String id = path.length > 1 ? path[1] : null;
+                switch (method) {
+                    case "GET" -> body = student(id);
+                    case "POST", "PUT", "DELETE" -> {
+                        status = write(method, id, new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                        body = ("{\"status\":" + status + "}").getBytes(StandardCharsets.UTF_8);
+                    }
+                    default -> throw new IllegalStateException();
+                }
+            } else if (!method.equals("GET")) {
+                throw new IllegalStateException();
+            } else {
+                body = cached(ex.getRequestURI().toString(), path[0], query(ex.getRequestURI().getRawQuery()));
+            }
+        } catch (NoSuchElementException e) {
+            status = 404;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (IllegalStateException e) {
+            status = 405;
+            body = error("不支持的请求方法");
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e.getMessage());
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    // 先读版本再计算: 计算期间若有写入, 缓存项带的是旧版本, 下次请求会重算
+    private byte[] cached(String key, String resource, Map<String, String> q) {
+        long version = mgr.version();
+        Cached c = cache.get(key);
+        if (c != null && c.version() == version) return c.body();
+        byte[] body = switch (resource) {
+            case "stats" -> stats(q.containsKey("dim") ? dim(q.get("dim")) : -1);
+            case "rank" -> rank(dim(param(q, "dim")), Rows.count(param(q, "k")), "asc".equals(q.get("order")));
+            case "percentile" -> percentile(dim(param(q, "dim")), Rows.percent(param(q, "p")));
+            case "search" -> search(q);
+            default -> throw new NoSuchElementException("未知资源: " + resource);
+        };
+        if (cache.size() >= CACHE_LIMIT) cache.clear();
+        cache.put(key, new Cached(version, body));
+        return body;
+    }
+
+    private byte[] student(String id) {
+        Student s = id == null ? null : mgr.get(id);
+        if (s == null) throw new NoSuchElementException("未找到学号: " + id);
+        StringBuilder sb = new StringBuilder();
+        Json.object(sb, Rows.studentHeader(mgr.schema()), Rows.student(mgr.schema(), s));
+        return utf8(sb);
+    }
+
+    private int write(String method, String id, String text) {
+        String[] f = text.trim().split(",");
+        if (method.equals("DELETE")) {
+            if (id == null) throw new IllegalArgumentException("缺少学号");
+            return status(mgr.delete(id));
+        }
+        int first = method.equals("POST") ? 2 : 1; // POST正文带学号, PUT的学号在路径中
+        if (f.length != first + mgr.schema().subjects()) throw new IllegalArgumentException("字段数不正确");
+        short[] scores = new short[f.length - first];
+        for (int i = 0; i < scores.length; i++) scores[i] = Short.parseShort(f[first + i].trim());
+        if (method.equals("POST")) return status(mgr.add(f[0].trim(), f[1].trim(), scores));
+        if (id == null) throw new IllegalArgumentException("缺少学号");
+        return status(mgr.update(id, f[0].trim(), scores));
+    }
+
+    private static int status(int result) {
+        return switch (result) {
+            case Manager.OK -> 200;
+            case Manager.BAD_SCORE -> 400;
+            case Manager.DUPLICATE -> 409;
+            default -> 404;
+        };
+    }
+
+    private byte[] stats(int only) {
+        Schema schema = mgr.schema();
+        StringBuilder sb = new StringBuilder("{\"count\":").append(mgr.count()).append(",\"dims\":[");
+        String[] keys = {"dim", "mean", "stddev", "min", "max", "median", "bands"};
+        for (int d = 0; d < schema.dims(); d++) {
+            if (only >= 0 && d != only) continue;
+            if (sb.charAt(sb.length() - 1) != '[') sb.append(',');
+            Json.object(sb, keys, new Object[]{schema.dim(d).name(), Rows.round2(mgr.classAvg(d)), Rows.round2(mgr.stdDev(d)),
+                    mgr.minScore(d), mgr.maxScore(d), mgr.percentile(d, 50), mgr.bands(d)});
+        }
+        return utf8(sb.append("]}"));
+    }
+
+    private byte[] rank(int dim, int k, boolean asc) {
+        StringBuilder sb = new StringBuilder();
+        Json.rows(sb, Rows.rankHeader(mgr.schema(), dim), Rows.rank(asc ? mgr.bottomK(dim, k) : mgr.topK(dim, k), dim));
+        return utf8(sb);
+    }
+
+    private byte[] search(Map<String, String> q) {
+        List<Student> list = q.containsKey("prefix") ? mgr.byNamePrefix(q.get("prefix"))
+                : mgr.range(dim(param(q, "dim")), Integer.parseInt(param(q, "min")), Integer.parseInt(param(q, "max")));
+        StringBuilder sb = new StringBuilder();
+        Json.rows(sb, Rows.studentHeader(mgr.schema()), Rows.students(mgr.schema(), list));
+        return utf8(sb);
+    }
+
+    private byte[] percentile(int dim, double p) {
+        StringBuilder sb = new StringBuilder();
+        Json.object(sb, new String[]{"dim", "p", "score"}, new Object[]{mgr.schema().dim(dim).name(), p, mgr.percentile(dim, p)});
+        return utf8(sb);
+    }
+
+    private int dim(String name) {
+        return Rows.dim(mgr.schema(), name);
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> q = new HashMap<>();
+        if (raw == null) return q;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) q.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return q;
+    }
+
+    private static String param(Map<String, String> q, String name) {
+        String v = q.get(name);
+        if (v == null) throw new IllegalArgumentException("缺少参数: " + name);
+        return v;
+    }
+
+    private static byte[] error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        Json.value(sb, message);
+        return utf8(sb.append('}'));
+    }
+
+    private static byte[] utf8(StringBuilder sb) {
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
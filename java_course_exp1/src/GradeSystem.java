@@ -1,206 +1,45 @@
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
 
-class Student {
-    private String id;
-    private String name;
-    private int java;
-    private int math;
-
-    public Student(String i, String n, int j, int m) {
-        id = i;
-        name = n;
-        java = j;
-        math = m;
-    }
-
-    public int total() { return java + math; }
-    public int getJava() { return java; }
-    public int getMath() { return math; }
-    public String getId() { return id; }
-    public String getName() { return name; }
-
-    public String info() {
-        return String.format("ID: %-5s 姓名: %-8s Java: %-3d 数学: %-3d 总分: %-4d",
-                id, name, java, math, total());
-    }
-
-    public String toFile() {
-        return id + "," + name + "," + java + "," + math;
-    }
-}
-
-class Manager {
-    private Student[] sts = new Student[100];
-    private int cnt = 0;
-    private static final String FILE_PATH = "students.txt";
-
-    public boolean add(String id, String name, int java, int math) {
-        if (java < 0 || java > 100 || math < 0 || math > 100) {
-            System.out.println("成绩必须在0-100范围内");
-            return false;
-        }
-        if (cnt >= 100) {
-            System.out.println("已达最大容量");
-            return false;
-        }
-        sts[cnt++] = new Student(id, name, java, math);
-        return true;
-    }
-
-    public void showAll() {
-        if (cnt == 0) {
-            System.out.println("没有学生数据");
-            return;
-        }
-        for (int i = 0; i < cnt; i++) {
-            System.out.println(sts[i].info());
-        }
-    }
-
-    public void find(String id) {
-        for (int i = 0; i < cnt; i++) {
-            if (sts[i].getId().equals(id)) {
-                System.out.println("找到: " + sts[i].info());
-                return;
-            }
-        }
-        System.out.println("未找到学号: " + id);
-    }
-
-    public double classAvg(int dim) {
-        if (cnt == 0) return 0;
-        double sum = 0;
-        for (int i = 0; i < cnt; i++) {
-            switch(dim) {
-                case 0: sum += sts[i].total(); break;       // 总分(200分制)
-                case 1: sum += sts[i].getJava(); break;      // Java(100分制)
-                case 2: sum += sts[i].getMath(); break;      // 数学(100分制)
-            }
-        }
-        return sum / cnt;
-    }
-
-    private void countGrades(int[] grades, int dim) {
-        Arrays.fill(grades, 0);
-        for (int i = 0; i < cnt; i++) {
-            int score;
-            switch (dim) {
-                case 0: // 总分按平均分计算等级(100分制)
-                    score = sts[i].total() / 2;
-                    break;
-                case 1: // Java成绩(100分制)
-                    score = sts[i].getJava();
-                    break;
-                default: // 数学成绩(100分制)
-                    score = sts[i].getMath();
-            }
-
-            if (score >= 90) grades[0]++;
-            else if (score >= 80) grades[1]++;
-            else if (score >= 70) grades[2]++;
-            else if (score >= 60) grades[3]++;
-            else grades[4]++;
-        }
-    }
-
-    public void showDist(int dim) {
-        int[] grades = new int[5];
-        countGrades(grades, dim);
-
-        String[] titles = {"总分(换算百分制)", "Java", "数学"};
-        System.out.println("\n" + titles[dim] + "等级分布:");
-        System.out.printf("A(90-100): %-2d | ", grades[0]);
-        System.out.println("*".repeat(grades[0]));
-        System.out.printf("B(80-89):  %-2d | ", grades[1]);
-        System.out.println("*".repeat(grades[1]));
-        System.out.printf("C(70-79):  %-2d | ", grades[2]);
-        System.out.println("*".repeat(grades[2]));
-        System.out.printf("D(60-69):  %-2d | ", grades[3]);
-        System.out.println("*".repeat(grades[3]));
-        System.out.printf("E(0-59):   %-2d | ", grades[4]);
-        System.out.println("*".repeat(grades[4]));
-    }
-
-    public void topBottom(int dim) {
-        if (cnt == 0) {
-            System.out.println("无学生数据");
-            return;
-        }
-
-        Student max = sts[0], min = sts[0];
-        for (int i = 1; i < cnt; i++) {
-            int cur = getScore(sts[i], dim);
-            int maxVal = getScore(max, dim);
-            int minVal = getScore(min, dim);
-
-            if (cur > maxVal) max = sts[i];
-            if (cur < minVal) min = sts[i];
+public class GradeSystem {
+    public static void main(String[] args) {
+        Schema schema;
+        try {
+            schema = Schema.load(Paths.get(Schema.PATH));
+        } catch (IOException | RuntimeException e) {
+            // 写到标准错误, 批处理模式下不与结果混在一起
+            System.err.println(Schema.PATH + "配置无效: " + e.getMessage() + ", 已改用默认科目");
+            schema = Schema.defaults();
         }
-
-        String[] titles = {"总分", "Java", "数学"};
-        String maxInfo = String.format("ID: %-5s 姓名: %-8s Java: %-3d 数学: %-3d 总分: %-4d",
-                max.getId(), max.getName(), max.getJava(), max.getMath(), max.total());
-        String minInfo = String.format("ID: %-5s 姓名: %-8s Java: %-3d 数学: %-3d 总分: %-4d",
-                min.getId(), min.getName(), min.getJava(), min.getMath(), min.total());
-
-        System.out.println(titles[dim] + "最高分: " + maxInfo);
-        System.out.println(titles[dim] + "最低分: " + minInfo);
-    }
-
-    private int getScore(Student s, int dim) {
-        return switch(dim) {
-            case 0 -> s.total();     // 总分(200分制)
-            case 1 -> s.getJava();   // Java(100分制)
-            default -> s.getMath();  // 数学(100分制)
-        };
-    }
-
-    public void sortByTotal() {
-        for (int i = 0; i < cnt - 1; i++) {
-            for (int j = 0; j < cnt - i - 1; j++) {
-                if (sts[j].total() < sts[j+1].total()) {
-                    Student tmp = sts[j];
-                    sts[j] = sts[j+1];
-                    sts[j+1] = tmp;
+        // -Dgrade.store=column 启用列式存储
+        Manager mgr = new Manager(StudentStore.create(System.getProperty("grade.store", "row"), schema));
+        // --serve [端口] 启动HTTP服务; --batch ... 执行批处理命令; 不带参数进入交互菜单
+        if (args.length > 0 && args[0].equals("--serve")) {
+            openJournal(mgr, loadFromFile(mgr));
+            ConcurrentManager shared = new ConcurrentManager(mgr);
+            try {
+                GradeServer.start(shared, args.length > 1 ? Integer.parseInt(args[1]) : GradeServer.DEFAULT_PORT);
+            } catch (IOException e) {
+                System.out.println("HTTP服务启动失败: " + e.getMessage());
+                try {
+                    shared.close();
+                } catch (IOException ignored) {
                 }
             }
+            return;
         }
-        System.out.println("已按总分从高到低排序");
-    }
-
-    public void sortById() {
-        for (int i = 0; i < cnt - 1; i++) {
-            for (int j = 0; j < cnt - i - 1; j++) {
-                if (sts[j].getId().compareTo(sts[j+1].getId()) > 0) {
-                    Student tmp = sts[j];
-                    sts[j] = sts[j+1];
-                    sts[j+1] = tmp;
-                }
-            }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchRunner.run(mgr, Arrays.copyOfRange(args, 1, args.length)));
         }
-        System.out.println("已按学号升序排序");
-    }
-
-    public void saveData() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FILE_PATH))) {
-            for (int i = 0; i < cnt; i++) {
-                pw.println(sts[i].toFile());
-            }
-            System.out.println("数据已保存至 " + FILE_PATH);
-        } catch (IOException e) {
-            System.out.println("保存失败: " + e.getMessage());
+        if (args.length > 0) {
+            System.err.println("未知参数: " + args[0] + " (用法: --serve [端口] | --batch [--format csv|json] [-f 命令文件] [命令 ; ...])");
+            System.exit(2);
         }
-    }
-}
-
-public class GradeSystem {
-    public static void main(String[] args) {
-        Manager mgr = new Manager();
         Scanner sc = new Scanner(System.in);
         int opt;
 
-        loadFromFile(mgr);
+        openJournal(mgr, loadFromFile(mgr));
 
         do {
             System.out.println("\n===== 学生成绩管理系统 =====");
@@ -210,9 +49,16 @@ public class GradeSystem {
             System.out.println("4. 计算平均分");
             System.out.println("5. 统计成绩分布");
             System.out.println("6. 查找最高/最低分");
-            System.out.println("7. 按总分排序");
+            System.out.println("7. 按" + schema.dim(0).name() + "排序");
             System.out.println("8. 按学号排序");
             System.out.println("9. 保存数据到文件");
+            System.out.println("10. 修改学生信息");
+            System.out.println("11. 删除学生");
+            System.out.println("12. 按指定维度排序");
+            System.out.println("13. 批量导入文件");
+            System.out.println("14. 导出CSV文件");
+            System.out.println("15. 排行榜与百分位");
+            System.out.println("16. 按分数范围/姓名前缀查询");
             System.out.println("0. 退出系统");
             System.out.print("请选择功能: ");
 
@@ -229,7 +75,17 @@ public class GradeSystem {
                 case 7 -> mgr.sortByTotal();
                 case 8 -> mgr.sortById();
                 case 9 -> mgr.saveData();
-                case 0 -> System.out.println("系统退出");
+                case 10 -> updateStudent(mgr, sc);
+                case 11 -> deleteStudent(mgr, sc);
+                case 12 -> sortStudents(mgr, sc);
+                case 13 -> importFile(mgr, sc);
+                case 14 -> exportCsv(mgr, sc);
+                case 15 -> leaderboard(mgr, sc);
+                case 16 -> search(mgr, sc);
+                case 0 -> {
+                    mgr.close();
+                    System.out.println("系统退出");
+                }
                 default -> System.out.println("无效选项");
             }
         } while (opt != 0);
@@ -237,18 +93,71 @@ public class GradeSystem {
         sc.close();
     }
 
-    private static void loadFromFile(Manager mgr) {
-        try (BufferedReader br = new BufferedReader(new FileReader("students.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 4) {
-                    mgr.add(parts[0], parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
-                }
+    // 优先内存映射二进制快照, 不存在或损坏时回退到文本数据; 返回快照的日志序号, 未用快照时返回-1
+    private static long loadFromFile(Manager mgr) {
+        Path snapshot = Paths.get(Manager.SNAPSHOT_PATH);
+        if (Files.exists(snapshot)) {
+            try {
+                Snapshot.Info info = Snapshot.load(snapshot, mgr);
+                System.out.println("已加载快照数据: " + info.rows() + " 条");
+                return info.seq();
+            } catch (IOException e) {
+                System.out.println("快照不可用(" + e.getMessage() + "), 改为读取文本数据");
             }
+        }
+        try {
+            BulkLoader.Result r = BulkLoader.load(Paths.get(Manager.FILE_PATH), mgr);
             System.out.println("已加载历史数据");
-        } catch (IOException | NumberFormatException e) {
+            if (r.rejected() > 0) printImport(r);
+        } catch (NoSuchFileException e) {
             System.out.println("无历史数据文件");
+        } catch (IOException e) {
+            System.out.println("加载失败: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    // 回放快照之后的日志尾部; 由文本数据启动时先建立基线快照
+    private static void openJournal(Manager mgr, long snapshotSeq) {
+        try {
+            Journal journal = Journal.open(Paths.get(Manager.JOURNAL_PATH));
+            int n = journal.replay(mgr, Math.max(snapshotSeq, 0));
+            if (n > 0) System.out.println("已从日志恢复 " + n + " 条变更");
+            mgr.attachJournal(journal);
+            if (snapshotSeq < 0) mgr.checkpoint();
+        } catch (IOException e) {
+            System.out.println("日志不可用(" + e.getMessage() + "), 修改仅保存在内存中");
+        }
+    }
+
+    private static void importFile(Manager mgr, Scanner sc) {
+        System.out.print("导入文件路径: ");
+        String path = sc.nextLine().trim();
+        try {
+            printImport(BulkLoader.load(Paths.get(path), mgr));
+            mgr.checkpoint(); // 导入量大, 直接写快照而不逐条记日志
+        } catch (IOException e) {
+            System.out.println("导入失败: " + e);
+        }
+    }
+
+    private static void exportCsv(Manager mgr, Scanner sc) {
+        System.out.print("导出文件路径(回车默认" + Manager.FILE_PATH + "): ");
+        String path = sc.nextLine().trim();
+        if (path.isEmpty()) path = Manager.FILE_PATH;
+        try {
+            mgr.exportCsv(path);
+            System.out.println("数据已导出至 " + path);
+        } catch (IOException e) {
+            System.out.println("导出失败: " + e.getMessage());
+        }
+    }
+
+    private static void printImport(BulkLoader.Result r) {
+        System.out.printf("导入 %d 条, 拒绝 %d 条, 耗时 %.1f ms, %.0f 行/秒\n",
+                r.rows(), r.rejected(), r.nanos() / 1e6, r.rowsPerSec());
+        if (r.rejectsFile() != null) {
+            System.out.println("拒绝报告: " + r.rejectsFile());
         }
     }
 
@@ -257,12 +166,35 @@ public class GradeSystem {
         String id = sc.nextLine();
         System.out.print("姓名: ");
         String name = sc.nextLine();
-        System.out.print("Java成绩: ");
-        int java = sc.nextInt();
-        System.out.print("数学成绩: ");
-        int math = sc.nextInt();
+        mgr.add(id, name, readScores(mgr.schema(), sc));
+    }
+
+    private static void updateStudent(Manager mgr, Scanner sc) {
+        System.out.print("学号: ");
+        String id = sc.nextLine();
+        System.out.print("姓名: ");
+        String name = sc.nextLine();
+        if (mgr.update(id, name, readScores(mgr.schema(), sc))) {
+            System.out.println("已修改学号: " + id);
+        }
+    }
+
+    private static short[] readScores(Schema schema, Scanner sc) {
+        short[] scores = new short[schema.subjects()];
+        for (int s = 0; s < scores.length; s++) {
+            System.out.print(schema.subject(s).name() + "成绩: ");
+            scores[s] = (short) sc.nextInt();
+        }
         sc.nextLine();
-        mgr.add(id, name, java, math);
+        return scores;
+    }
+
+    private static void deleteStudent(Manager mgr, Scanner sc) {
+        System.out.print("输入学号: ");
+        String id = sc.nextLine();
+        if (mgr.delete(id)) {
+            System.out.println("已删除学号: " + id);
+        }
     }
 
     private static void findStudent(Manager mgr, Scanner sc) {
@@ -272,36 +204,135 @@ public class GradeSystem {
     }
 
     private static void calcAvg(Manager mgr, Scanner sc) {
-        System.out.println("1. 总分平均  2. Java平均  3. 数学平均");
+        System.out.println(mgr.schema().menu("平均"));
         System.out.print("请选择维度: ");
-        int dim = getValidDim(sc);
+        int dim = getValidDim(mgr.schema(), sc);
         double avg = mgr.classAvg(dim);
-        String[] titles = {"总分(200分制)", "Java(100分制)", "数学(100分制)"};
-        System.out.printf("%s平均分: %.1f\n", titles[dim], avg);
+        Dimension d = mgr.schema().dim(dim);
+        System.out.printf("%s(%d分制)平均分: %.1f  标准差: %.2f\n", d.name(), d.full(), avg, mgr.stdDev(dim));
     }
 
     private static void showDist(Manager mgr, Scanner sc) {
-        System.out.println("1. 总分分布  2. Java分布  3. 数学分布");
+        System.out.println(mgr.schema().menu("分布"));
         System.out.print("请选择维度: ");
-        int dim = getValidDim(sc);
+        int dim = getValidDim(mgr.schema(), sc);
         mgr.showDist(dim);
     }
 
     private static void findTopBottom(Manager mgr, Scanner sc) {
-        System.out.println("1. 总分排名  2. Java排名  3. 数学排名");
+        System.out.println(mgr.schema().menu("排名"));
         System.out.print("请选择维度: ");
-        int dim = getValidDim(sc);
+        int dim = getValidDim(mgr.schema(), sc);
         mgr.topBottom(dim);
     }
 
-    private static int getValidDim(Scanner sc) {
+    private static void sortStudents(Manager mgr, Scanner sc) {
+        Schema schema = mgr.schema();
+        int n = schema.dims();
+        System.out.println(schema.menu("") + "  " + (n + 1) + ". 学号  " + (n + 2) + ". 姓名");
+        System.out.print("请选择排序维度: ");
+        int input = sc.nextInt();
+        System.out.print("1. 升序  2. 降序: ");
+        boolean desc = sc.nextInt() == 2;
+        sc.nextLine();
+        int dim;
+        String title;
+        if (input == n + 1) {
+            dim = SortEngine.BY_ID;
+            title = "学号";
+        } else if (input == n + 2) {
+            dim = SortEngine.BY_NAME;
+            title = "姓名";
+        } else {
+            if (input < 1 || input > n) {
+                System.out.println("无效维度! 默认使用" + schema.dim(0).name() + "维度");
+                input = 1;
+            }
+            dim = input - 1;
+            title = schema.dim(dim).name();
+        }
+        mgr.sortBy(dim, desc);
+        System.out.println("已按" + title + (desc ? "降序" : "升序") + "排序");
+    }
+
+    private static void leaderboard(Manager mgr, Scanner sc) {
+        System.out.println(mgr.schema().menu(""));
+        System.out.print("请选择维度: ");
+        int dim = getValidDim(mgr.schema(), sc);
+        System.out.println("1. 前K名  2. 后K名  3. 查询学号排名  4. 百分位(中位数/P90)");
+        System.out.print("请选择查询: ");
+        int q = sc.nextInt();
+        sc.nextLine();
+        try {
+            leaderboard(mgr, sc, dim, q);
+        } catch (IllegalArgumentException e) {
+            System.out.println("查询失败: " + e.getMessage());
+        }
+    }
+
+    private static void leaderboard(Manager mgr, Scanner sc, int dim, int q) {
+        String title = mgr.schema().dim(dim).name();
+        switch (q) {
+            case 1, 2 -> {
+                System.out.print("K: ");
+                int k = sc.nextInt();
+                sc.nextLine();
+                List<Student> list = q == 1 ? mgr.topK(dim, k) : mgr.bottomK(dim, k);
+                for (int i = 0; i < list.size(); i++) {
+                    System.out.println((i + 1) + ". " + list.get(i).info());
+                }
+            }
+            case 3 -> {
+                System.out.print("输入学号: ");
+                String id = sc.nextLine();
+                int rank = mgr.rank(id, dim);
+                if (rank == 0) System.out.println("未找到学号: " + id);
+                else System.out.println(title + "排名: " + rank + " / " + mgr.count());
+            }
+            case 4 -> {
+                System.out.print("百分位(0-100): ");
+                double p = sc.nextDouble();
+                sc.nextLine();
+                System.out.println(title + " P" + p + ": " + mgr.percentile(dim, p)
+                        + "  中位数: " + mgr.percentile(dim, 50) + "  P90: " + mgr.percentile(dim, 90));
+            }
+            default -> System.out.println("无效选项");
+        }
+    }
+
+    private static void search(Manager mgr, Scanner sc) {
+        System.out.println("1. 按分数范围  2. 按姓名前缀");
+        System.out.print("请选择查询: ");
+        int q = sc.nextInt();
+        sc.nextLine();
+        List<Student> list;
+        if (q == 1) {
+            System.out.println(mgr.schema().menu(""));
+            System.out.print("请选择维度: ");
+            int dim = getValidDim(mgr.schema(), sc);
+            System.out.print("最低分 最高分: ");
+            int lo = sc.nextInt(), hi = sc.nextInt();
+            sc.nextLine();
+            list = mgr.range(dim, lo, hi);
+        } else if (q == 2) {
+            System.out.print("姓名前缀: ");
+            list = mgr.byNamePrefix(sc.nextLine());
+        } else {
+            System.out.println("无效选项");
+            return;
+        }
+        for (Student s : list) System.out.println(s.info());
+        System.out.println("共 " + list.size() + " 人");
+    }
+
+    private static int getValidDim(Schema schema, Scanner sc) {
         int input = sc.nextInt();
         sc.nextLine();
 
-        if (input < 1 || input > 3) {
-            System.out.println("无效维度! 默认使用总分维度");
+        if (input < 1 || input > schema.dims()) {
+            System.out.println("无效维度! 默认使用" + schema.dim(0).name() + "维度");
             return 0;
         }
         return input - 1;
     }
-}
\ No newline at end of file
+}
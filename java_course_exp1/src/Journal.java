@@ -0,0 +1,155 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+// 预写日志: 每次增删改追加一条记录, 由后台线程分组提交(一次write+force); 记录过多时压缩为全量快照
+// 记录: 长度(4) CRC32(4) | 序号(8) 操作(1) 学号 [姓名 各科成绩(2*科目数)]; 字符串为2字节长度+UTF-8
+class Journal implements Closeable {
+    public static final byte ADD = 1;
+    public static final byte UPDATE = 2;
+    public static final byte DELETE = 3;
+    private static final int GROUP_BYTES = 64 << 10;  // 积累到64KB立即提交
+    private static final long COMMIT_INTERVAL_MS = 50; // 否则每50ms提交一次
+    private static final int COMPACT_MIN = 10_000;
+
+    private final FileChannel ch;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(GROUP_BYTES * 2);
+    private long seq;    // 最后分配的序号
+    private int records; // 日志文件中的记录数
+
+    private Journal(FileChannel ch) {
+        this.ch = ch;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                commit();
+            } catch (IOException e) {
+                System.out.println("日志提交失败: " + e.getMessage());
+            }
+        }, COMMIT_INTERVAL_MS, COMMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static Journal open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ch.position(ch.size());
+        return new Journal(ch);
+    }
+
+    // 回放序号大于afterSeq的记录, 返回回放条数; 遇到不完整或校验失败的尾部即截断
+    public synchronized int replay(Manager mgr, long afterSeq) throws IOException {
+        seq = afterSeq;
+        long size = ch.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("日志文件过大");
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining() && ch.read(buf, buf.position()) > 0) {}
+        buf.flip();
+
+        int pos = 0, applied = 0;
+        while (pos + 8 <= buf.limit()) {
+            int len = buf.getInt(pos);
+            if (len < 11 || pos + 8L + len > buf.limit()) break;
+            crc.reset();
+            crc.update(buf.array(), pos + 8, len);
+            if ((int) crc.getValue() != buf.getInt(pos + 4)) break;
+
+            ByteBuffer rec = buf.slice(pos + 8, len);
+            long s = rec.getLong();
+            byte op = rec.get();
+            String id = readString(rec);
+            if (s > afterSeq) {
+                if (op == DELETE) {
+                    mgr.tryDelete(id);
+                } else {
+                    String name = readString(rec);
+                    short[] scores = new short[rec.remaining() / 2]; // 成绩个数由记录长度决定
+                    rec.asShortBuffer().get(scores);
+                    if (op == ADD) mgr.tryAdd(id, name, scores);
+                    else mgr.tryUpdate(id, name, scores);
+                }
+                applied++;
+            }
+            seq = Math.max(seq, s);
+            records++;
+            pos += 8 + len;
+        }
+        if (pos < size) ch.truncate(pos);
+        ch.position(pos);
+        return applied;
+    }
+
+    private static String readString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getShort() & 0xFFFF];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized void append(byte op, String id, String name, short[] scores) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = op == DELETE ? null : name.getBytes(StandardCharsets.UTF_8);
+        int len = 8 + 1 + 2 + idBytes.length + (nameBytes == null ? 0 : 2 + nameBytes.length + 2 * scores.length);
+        if (pending.remaining() < 8 + len) {
+            pending = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + 8 + len))
+                    .put(pending.flip());
+        }
+
+        int start = pending.position();
+        pending.putInt(len).putInt(0).putLong(++seq).put(op);
+        pending.putShort((short) idBytes.length).put(idBytes);
+        if (nameBytes != null) {
+            pending.putShort((short) nameBytes.length).put(nameBytes);
+            for (short v : scores) pending.putShort(v);
+        }
+        crc.reset();
+        crc.update(pending.array(), start + 8, len);
+        pending.putInt(start + 4, (int) crc.getValue());
+        records++;
+        if (pending.position() >= GROUP_BYTES) commit();
+    }
+
+    // 把缓冲的一组记录一次写出并落盘
+    public synchronized void commit() throws IOException {
+        if (pending.position() == 0) return;
+        pending.flip();
+        while (pending.hasRemaining()) ch.write(pending);
+        pending.clear();
+        ch.force(false);
+    }
+
+    public synchronized boolean isEmpty() {
+        return records == 0;
+    }
+
+    public synchronized boolean shouldCompact(int rows) {
+        return records >= Math.max(COMPACT_MIN, rows);
+    }
+
+    // 快照记下已包含的最后序号; 改名后、截断前崩溃时, 回放会跳过这些旧记录
+    public synchronized void compact(Path snapshot, StudentStore store, int[] view) throws IOException {
+        commit();
+        Snapshot.write(snapshot, store, view, seq);
+        ch.truncate(0);
+        ch.position(0);
+        ch.force(true);
+        records = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        synchronized (this) {
+            commit();
+            ch.close();
+        }
+    }
+}
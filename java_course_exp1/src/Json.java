@@ -0,0 +1,54 @@
+import java.util.*;
+
+// 最小JSON输出: 数字原样输出, 其余按字符串转义; 数组输出为JSON数组
+class Json {
+    public static void value(StringBuilder sb, Object v) {
+        if (v instanceof Number) {
+            sb.append(v);
+            return;
+        }
+        if (v instanceof int[] a) {
+            sb.append('[');
+            for (int i = 0; i < a.length; i++) sb.append(i > 0 ? "," : "").append(a[i]);
+            sb.append(']');
+            return;
+        }
+        String s = String.valueOf(v);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    public static void object(StringBuilder sb, String[] keys, Object[] values) {
+        sb.append('{');
+        for (int c = 0; c < keys.length; c++) {
+            if (c > 0) sb.append(',');
+            value(sb, keys[c]);
+            sb.append(':');
+            value(sb, values[c]);
+        }
+        sb.append('}');
+    }
+
+    public static void rows(StringBuilder sb, String[] header, List<Object[]> rows) {
+        sb.append('[');
+        for (int r = 0; r < rows.size(); r++) {
+            if (r > 0) sb.append(',');
+            object(sb, header, rows.get(r));
+        }
+        sb.append(']');
+    }
+}
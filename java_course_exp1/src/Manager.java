@@ -0,0 +1,346 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+class Manager {
+    private final Schema schema;
+    private final StudentStore store;
+    private final SortEngine sorter;
+    private final DimStats[] stats;
+    private SortKey order; // 当前显示顺序, null为存储顺序
+    private Journal journal; // 挂接后每次修改都先追加到日志
+    private TreeSet<String> names; // 姓名索引, 键为"姓名\0学号"; 首次前缀查询时建立, 之后随修改维护
+    public static final String FILE_PATH = "students.txt";
+    public static final String SNAPSHOT_PATH = "students.dat";
+    public static final String JOURNAL_PATH = "students.journal";
+
+    public Manager() {
+        this(new RowStore(Schema.defaults()));
+    }
+
+    public Manager(StudentStore store) {
+        this.schema = store.schema();
+        this.store = store;
+        this.sorter = new SortEngine(store);
+        this.stats = new DimStats[schema.dims()];
+        for (int d = 0; d < stats.length; d++) {
+            stats[d] = new DimStats(schema.dim(d).full());
+        }
+    }
+
+    public Schema schema() {
+        return schema;
+    }
+
+    public static final int OK = 0;
+    public static final int BAD_SCORE = 1;
+    public static final int DUPLICATE = 2;
+    public static final int NOT_FOUND = 3;
+
+    public boolean add(String id, String name, short[] scores) {
+        int r = tryAdd(id, name, scores);
+        if (r == BAD_SCORE) System.out.println("成绩必须在0-满分范围内");
+        if (r == DUPLICATE) System.out.println("学号已存在: " + id);
+        if (r == OK) log(Journal.ADD, id, name, scores);
+        return r == OK;
+    }
+
+    // try*系列不输出提示也不写日志, 供批量导入和日志回放使用
+    public int tryAdd(String id, String name, short[] scores) {
+        if (!schema.valid(scores)) return BAD_SCORE;
+        if (!store.add(id, name, scores)) return DUPLICATE;
+        track(store.size() - 1);
+        return OK;
+    }
+
+    public void reserve(int extra) {
+        store.ensureCapacity(store.size() + extra);
+    }
+
+    public boolean update(String id, String name, short[] scores) {
+        int r = tryUpdate(id, name, scores);
+        if (r == NOT_FOUND) System.out.println("未找到学号: " + id);
+        if (r == BAD_SCORE) System.out.println("成绩必须在0-满分范围内");
+        if (r == OK) log(Journal.UPDATE, id, name, scores);
+        return r == OK;
+    }
+
+    public int tryUpdate(String id, String name, short[] scores) {
+        int i = store.indexOf(id);
+        if (i < 0) return NOT_FOUND;
+        if (!schema.valid(scores)) return BAD_SCORE;
+        untrack(i);
+        store.set(i, name, scores);
+        track(i);
+        return OK;
+    }
+
+    public boolean delete(String id) {
+        int r = tryDelete(id);
+        if (r == NOT_FOUND) System.out.println("未找到学号: " + id);
+        if (r == OK) log(Journal.DELETE, id, null, null);
+        return r == OK;
+    }
+
+    public int tryDelete(String id) {
+        int i = store.indexOf(id);
+        if (i < 0) return NOT_FOUND;
+        untrack(i);
+        int last = store.size() - 1;
+        if (i != last) {
+            for (int d = 0; d < stats.length; d++) {
+                stats[d].move(last, i, store.score(last, d));
+            }
+        }
+        store.removeAt(i);
+        return OK;
+    }
+
+    public void attachJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public boolean hasJournal() {
+        return journal != null;
+    }
+
+    // 把日志交给接管数据的对象(如ConcurrentManager), 本对象不再写日志
+    public Journal detachJournal() {
+        Journal j = journal;
+        journal = null;
+        return j;
+    }
+
+    private void log(byte op, String id, String name, short[] scores) {
+        if (journal == null) return;
+        try {
+            journal.append(op, id, name, scores);
+            if (journal.shouldCompact(store.size())) checkpoint();
+        } catch (IOException e) {
+            System.out.println("日志写入失败: " + e.getMessage());
+        }
+    }
+
+    private void track(int row) {
+        for (int d = 0; d < stats.length; d++) {
+            stats[d].add(row, store.score(row, d));
+        }
+        if (names != null) names.add(nameKey(store.name(row), store.id(row)));
+    }
+
+    private void untrack(int row) {
+        for (int d = 0; d < stats.length; d++) {
+            stats[d].remove(row, store.score(row, d));
+        }
+        if (names != null) names.remove(nameKey(store.name(row), store.id(row)));
+    }
+
+    static String nameKey(String name, String id) {
+        return name + '\0' + id;
+    }
+
+    // 键区间[prefix, prefix+'\uffff')内的学号
+    static List<String> idsWithPrefix(NavigableSet<String> names, String prefix) {
+        List<String> ids = new ArrayList<>();
+        for (String key : names.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            ids.add(key.substring(key.lastIndexOf('\0') + 1));
+        }
+        return ids;
+    }
+
+    public void showAll() {
+        if (store.size() == 0) {
+            System.out.println("没有学生数据");
+            return;
+        }
+        int[] view = currentView();
+        for (int i = 0; i < store.size(); i++) {
+            System.out.println(store.get(rowAt(view, i)).info());
+        }
+    }
+
+    public void find(String id) {
+        int i = store.indexOf(id);
+        if (i >= 0) {
+            System.out.println("找到: " + store.get(i).info());
+            return;
+        }
+        System.out.println("未找到学号: " + id);
+    }
+
+    public void forEach(Consumer<Student> action) {
+        for (int i = 0; i < store.size(); i++) action.accept(store.get(i));
+    }
+
+    // 未找到时返回null
+    public Student get(String id) {
+        int i = store.indexOf(id);
+        return i < 0 ? null : store.get(i);
+    }
+
+    public double classAvg(int dim) {
+        return stats[dim].mean();
+    }
+
+    public double stdDev(int dim) {
+        return Math.sqrt(stats[dim].variance());
+    }
+
+    public void showDist(int dim) {
+        int[] grades = stats[dim].bands();
+
+        Dimension d = schema.dim(dim);
+        String title = d.full() == 100 ? d.name() : d.name() + "(换算百分制)";
+        System.out.println("\n" + title + "等级分布:");
+        System.out.printf("A(90-100): %-2d | ", grades[0]);
+        System.out.println("*".repeat(grades[0]));
+        System.out.printf("B(80-89):  %-2d | ", grades[1]);
+        System.out.println("*".repeat(grades[1]));
+        System.out.printf("C(70-79):  %-2d | ", grades[2]);
+        System.out.println("*".repeat(grades[2]));
+        System.out.printf("D(60-69):  %-2d | ", grades[3]);
+        System.out.println("*".repeat(grades[3]));
+        System.out.printf("E(0-59):   %-2d | ", grades[4]);
+        System.out.println("*".repeat(grades[4]));
+    }
+
+    public void topBottom(int dim) {
+        if (store.size() == 0) {
+            System.out.println("无学生数据");
+            return;
+        }
+
+        Student max = store.get(stats[dim].holder(stats[dim].max()));
+        Student min = store.get(stats[dim].holder(stats[dim].min()));
+
+        String title = schema.dim(dim).name();
+        System.out.println(title + "最高分: " + max.info());
+        System.out.println(title + "最低分: " + min.info());
+    }
+
+    public List<Student> topK(int dim, int k) {
+        return rows(stats[dim].top(k, true));
+    }
+
+    public List<Student> bottomK(int dim, int k) {
+        return rows(stats[dim].top(k, false));
+    }
+
+    private List<Student> rows(int[] rows) {
+        List<Student> list = new ArrayList<>(rows.length);
+        for (int r : rows) list.add(store.get(r));
+        return list;
+    }
+
+    // 得分在[lo, hi]内的学生, 按分数从低到高
+    public List<Student> range(int dim, int lo, int hi) {
+        return rows(stats[dim].range(lo, hi));
+    }
+
+    // 姓名以prefix开头的学生, 按姓名排序
+    public List<Student> byNamePrefix(String prefix) {
+        if (names == null) {
+            names = new TreeSet<>();
+            for (int i = 0; i < store.size(); i++) names.add(nameKey(store.name(i), store.id(i)));
+        }
+        List<Student> list = new ArrayList<>();
+        for (String id : idsWithPrefix(names, prefix)) list.add(store.get(store.indexOf(id)));
+        return list;
+    }
+
+    // 未找到学号时返回0
+    public int rank(String id, int dim) {
+        int i = store.indexOf(id);
+        return i < 0 ? 0 : stats[dim].rank(store.score(i, dim));
+    }
+
+    public int percentile(int dim, double p) {
+        return stats[dim].percentile(p);
+    }
+
+    public int count() {
+        return store.size();
+    }
+
+    public int maxScore(int dim) {
+        return stats[dim].max();
+    }
+
+    public int minScore(int dim) {
+        return stats[dim].min();
+    }
+
+    public int[] bands(int dim) {
+        return stats[dim].bands();
+    }
+
+    public void sortByTotal() {
+        sortBy(0, true);
+        System.out.println("已按" + schema.dim(0).name() + "从高到低排序");
+    }
+
+    public void sortById() {
+        sortBy(SortEngine.BY_ID, false);
+        System.out.println("已按学号升序排序");
+    }
+
+    public void sortBy(int dim, boolean desc) {
+        order = new SortKey(dim, desc);
+        sorter.order(order);
+    }
+
+    private int[] currentView() {
+        return order == null ? null : sorter.order(order);
+    }
+
+    private static int rowAt(int[] view, int i) {
+        return view == null ? i : view[i];
+    }
+
+    // 有日志时只需提交尚未落盘的变更, 代价与变更量成正比
+    public void saveData() {
+        if (journal == null) {
+            if (checkpoint()) System.out.println("数据已保存至 " + SNAPSHOT_PATH);
+            return;
+        }
+        try {
+            journal.commit();
+            System.out.println("变更已提交至 " + JOURNAL_PATH);
+        } catch (IOException e) {
+            System.out.println("保存失败: " + e.getMessage());
+        }
+    }
+
+    // 写出全量快照并清空日志
+    public boolean checkpoint() {
+        try {
+            if (journal != null) journal.compact(Paths.get(SNAPSHOT_PATH), store, currentView());
+            else Snapshot.write(Paths.get(SNAPSHOT_PATH), store, currentView(), 0);
+            return true;
+        } catch (IOException e) {
+            System.out.println("快照写入失败: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // 日志中有未压缩的变更时才写快照
+    public void close() {
+        if (journal == null) return;
+        if (!journal.isEmpty()) checkpoint();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("日志关闭失败: " + e.getMessage());
+        }
+    }
+
+    public void exportCsv(String path) throws IOException {
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(path)))) {
+            int[] view = currentView();
+            for (int i = 0; i < store.size(); i++) {
+                pw.println(store.get(rowAt(view, i)).toFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.*;
+
+// 行式存储: 每个学生一个对象, 各科成绩为一个short[]
+class RowStore implements StudentStore {
+    private final Schema schema;
+    private Student[] data = new Student[16];
+    private int size = 0;
+    private long version = 0;
+    private final HashMap<String, Integer> pos = new HashMap<>();
+
+    public RowStore(Schema schema) {
+        this.schema = schema;
+    }
+
+    public Schema schema() { return schema; }
+    public int size() { return size; }
+    public long version() { return version; }
+    public Student get(int i) { return data[i]; }
+    public String id(int i) { return data[i].getId(); }
+    public String name(int i) { return data[i].getName(); }
+    public int subject(int i, int s) { return data[i].subject(s); }
+    public int score(int i, int dim) { return data[i].score(dim); }
+
+    public int indexOf(String id) {
+        Integer i = pos.get(id);
+        return i == null ? -1 : i;
+    }
+
+    public boolean add(String id, String name, short[] scores) {
+        if (pos.putIfAbsent(id, size) != null) return false;
+        if (size == data.length) ensureCapacity(size + 1);
+        data[size++] = new Student(id, name, scores, schema);
+        version++;
+        return true;
+    }
+
+    public void set(int i, String name, short[] scores) {
+        data[i] = new Student(data[i].getId(), name, scores, schema);
+        version++;
+    }
+
+    public void removeAt(int i) {
+        pos.remove(data[i].getId());
+        int last = --size;
+        if (i != last) {
+            data[i] = data[last];
+            pos.put(data[i].getId(), i);
+        }
+        data[last] = null;
+        version++;
+    }
+
+    public void ensureCapacity(int n) {
+        if (n <= data.length) return;
+        int cap = Math.max(n, data.length + (data.length >> 1));
+        data = Arrays.copyOf(data, cap);
+    }
+}
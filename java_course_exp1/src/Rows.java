@@ -0,0 +1,73 @@
+import java.util.*;
+
+// 批量模式与HTTP服务共用的结果行和参数解析: 表头与数据行列序一致, 交给CSV或Json输出
+class Rows {
+    public static String[] studentHeader(Schema schema) {
+        String[] h = new String[2 + schema.dims()];
+        h[0] = "id";
+        h[1] = "name";
+        for (int d = 0; d < schema.dims(); d++) h[2 + d] = schema.dim(d).name();
+        return h;
+    }
+
+    public static Object[] student(Schema schema, Student s) {
+        Object[] row = new Object[2 + schema.dims()];
+        row[0] = s.getId();
+        row[1] = s.getName();
+        for (int d = 2; d < row.length; d++) row[d] = s.score(d - 2);
+        return row;
+    }
+
+    public static List<Object[]> students(Schema schema, List<Student> list) {
+        List<Object[]> rows = new ArrayList<>(list.size());
+        for (Student s : list) rows.add(student(schema, s));
+        return rows;
+    }
+
+    public static String[] rankHeader(Schema schema, int dim) {
+        return new String[]{"rank", "id", "name", schema.dim(dim).name()};
+    }
+
+    public static List<Object[]> rank(List<Student> list, int dim) {
+        List<Object[]> rows = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Student s = list.get(i);
+            rows.add(new Object[]{i + 1, s.getId(), s.getName(), s.score(dim)});
+        }
+        return rows;
+    }
+
+    public static int dim(Schema schema, String name) {
+        int d = schema.indexOf(name);
+        if (d < 0) throw new IllegalArgumentException("未知维度: " + name);
+        return d;
+    }
+
+    // 排名人数, 不能为负
+    public static int count(String text) {
+        int k;
+        try {
+            k = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("人数不是整数: " + text);
+        }
+        if (k < 0) throw new IllegalArgumentException("人数不能为负: " + k);
+        return k;
+    }
+
+    // 百分位, 取值0~100
+    public static double percent(String text) {
+        double p;
+        try {
+            p = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("百分位不是数字: " + text);
+        }
+        if (!(p >= 0 && p <= 100)) throw new IllegalArgumentException("百分位应在0~100之间: " + text);
+        return p;
+    }
+
+    public static double round2(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// 维度注册表, 由schema.properties定义; 维度编号为派生维度在前、科目在后, 默认为 0总分 1Java 2数学
+// 多学期成绩可把学期写进科目名, 如 "2024秋Java"
+class Schema {
+    public static final String PATH = "schema.properties";
+
+    private final Dimension[] dims;
+    private final int subjects;
+    private final int firstSubject; // 第一个科目的维度编号
+
+    private Schema(List<Dimension> derived, List<Dimension> subjectDims) {
+        this.subjects = subjectDims.size();
+        this.firstSubject = derived.size();
+        List<Dimension> all = new ArrayList<>(derived);
+        all.addAll(subjectDims);
+        this.dims = all.toArray(new Dimension[0]);
+    }
+
+    public static Schema defaults() {
+        return parse("Java:100,数学:100", "总分:Java*1+数学*1");
+    }
+
+    // subjects=名称[:满分],...   derived=名称:科目*权重+科目*权重;...
+    public static Schema load(Path path) throws IOException {
+        if (!Files.exists(path)) return defaults();
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            props.load(r);
+        }
+        return parse(props.getProperty("subjects", "Java:100,数学:100"), props.getProperty("derived", ""));
+    }
+
+    private static Schema parse(String subjectSpec, String derivedSpec) {
+        List<Dimension> subjectDims = new ArrayList<>();
+        Map<String, Integer> ordinal = new HashMap<>();
+        for (String item : subjectSpec.split(",")) {
+            String[] kv = item.trim().split(":");
+            String name = kv[0].trim();
+            if (name.isEmpty()) continue;
+            int full;
+            try {
+                full = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 100;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("满分不是整数: " + item.trim());
+            }
+            if (full <= 0 || full > Short.MAX_VALUE) throw new IllegalArgumentException("满分超出范围: " + item);
+            if (ordinal.putIfAbsent(name, subjectDims.size()) != null) throw new IllegalArgumentException("科目重名: " + name);
+            subjectDims.add(new Dimension(name, full, subjectDims.size(), null, null));
+        }
+        if (subjectDims.isEmpty()) throw new IllegalArgumentException("至少需要一个科目");
+
+        List<Dimension> derived = new ArrayList<>();
+        Set<String> names = new HashSet<>(ordinal.keySet());
+        for (String item : derivedSpec.split(";")) {
+            if (item.isBlank()) continue;
+            int colon = item.indexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("派生维度应写成 名称:科目*权重+...: " + item.trim());
+            String name = item.substring(0, colon).trim();
+            if (!names.add(name)) throw new IllegalArgumentException("维度重名: " + name);
+            String[] parts = item.substring(colon + 1).split("\\+");
+            int[] terms = new int[parts.length];
+            double[] weights = new double[parts.length];
+            double full = 0;
+            for (int t = 0; t < parts.length; t++) {
+                String[] sw = parts[t].trim().split("\\*");
+                Integer s = ordinal.get(sw[0].trim());
+                if (s == null) throw new IllegalArgumentException("未知科目: " + sw[0]);
+                terms[t] = s;
+                try {
+                    weights[t] = sw.length > 1 ? Double.parseDouble(sw[1].trim()) : 1;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("权重不是数字: " + parts[t].trim());
+                }
+                if (weights[t] < 0) throw new IllegalArgumentException("权重不能为负: " + parts[t]);
+                full += weights[t] * subjectDims.get(s).full();
+            }
+            // 满分为0时分段统计会除零, 过大时分桶数组放不下
+            if (Math.round(full) <= 0 || full > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("派生维度满分超出范围(权重不能全为0): " + item.trim());
+            }
+            derived.add(new Dimension(name, (int) Math.round(full), -1, terms, weights));
+        }
+        return new Schema(derived, subjectDims);
+    }
+
+    public int dims() { return dims.length; }
+
+    // 按维度名或菜单编号(从1开始)查找, 找不到返回-1
+    public int indexOf(String nameOrNumber) {
+        for (int d = 0; d < dims.length; d++) {
+            if (dims[d].name().equals(nameOrNumber)) return d;
+        }
+        try {
+            int n = Integer.parseInt(nameOrNumber);
+            return n >= 1 && n <= dims.length ? n - 1 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    public Dimension dim(int d) { return dims[d]; }
+    public int subjects() { return subjects; }
+    public Dimension subject(int s) { return dims[firstSubject + s]; }
+
+    public int score(short[] scores, int dim) {
+        Dimension d = dims[dim];
+        if (!d.derived()) return scores[d.subject()];
+        double v = 0;
+        for (int t = 0; t < d.terms().length; t++) {
+            v += d.weights()[t] * scores[d.terms()[t]];
+        }
+        return (int) Math.round(v);
+    }
+
+    public boolean valid(short[] scores) {
+        if (scores.length != subjects) return false;
+        for (int s = 0; s < subjects; s++) {
+            if (scores[s] < 0 || scores[s] > subject(s).full()) return false;
+        }
+        return true;
+    }
+
+    // 维度菜单, 如 "1. 总分  2. Java  3. 数学"
+    public String menu(String suffix) {
+        StringBuilder sb = new StringBuilder();
+        for (int d = 0; d < dims.length; d++) {
+            if (d > 0) sb.append("  ");
+            sb.append(d + 1).append(". ").append(dims[d].name()).append(suffix);
+        }
+        return sb.toString();
+    }
+}
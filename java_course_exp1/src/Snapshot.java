@@ -0,0 +1,144 @@
+import java.io.*;
+import java.lang.foreign.Arena;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// 二进制快照: 字符串表 + 定宽成绩列, 经FileChannel写临时文件后原子改名, 启动时内存映射读取; CRC32检测不完整写入
+// 头部(v1为32字节, v2为40字节): magic(4) 版本(2) 科目数(2) 行数(4) 字符串数(4) 正文长度(8) 正文CRC(4) 保留(4) [日志序号(8)]
+// 正文: 字符串偏移int[字符串数+1], UTF-8字节, 学号引用int[行数], 姓名引用int[行数], 各科成绩short[行数]
+class Snapshot {
+    private static final int MAGIC = 0x47524453; // "GRDS"
+    private static final short VERSION = 2;
+
+    // seq: 快照已包含的最后一条日志序号
+    record Info(int rows, long seq) {}
+
+    private static int headerSize(short version) {
+        return version == 1 ? 32 : 40;
+    }
+
+    // 字符串去重表, 姓名重复时只存一份
+    private static final class StringTable {
+        final HashMap<String, Integer> codes = new HashMap<>();
+        final ArrayList<byte[]> bytes = new ArrayList<>();
+        long size;
+
+        int ref(String s) {
+            Integer code = codes.get(s);
+            if (code == null) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                code = bytes.size();
+                bytes.add(b);
+                codes.put(s, code);
+                size += b.length;
+            }
+            return code;
+        }
+    }
+
+    public static void write(Path path, StudentStore store, int[] view, long seq) throws IOException {
+        int rows = store.size();
+        int subjects = store.schema().subjects();
+        StringTable table = new StringTable();
+        int[] idRef = new int[rows];
+        int[] nameRef = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            int r = view == null ? i : view[i];
+            idRef[i] = table.ref(store.id(r));
+            nameRef[i] = table.ref(store.name(r));
+        }
+
+        int strings = table.bytes.size();
+        long bodyLen = 4L * (strings + 1) + table.size + 8L * rows + 2L * subjects * rows;
+        if (bodyLen > Integer.MAX_VALUE) throw new IOException("数据量超过快照上限");
+
+        ByteBuffer body = ByteBuffer.allocateDirect((int) bodyLen);
+        int off = 0;
+        for (byte[] b : table.bytes) {
+            body.putInt(off);
+            off += b.length;
+        }
+        body.putInt(off);
+        for (byte[] b : table.bytes) body.put(b);
+        for (int i = 0; i < rows; i++) body.putInt(idRef[i]);
+        for (int i = 0; i < rows; i++) body.putInt(nameRef[i]);
+        for (int s = 0; s < subjects; s++) {
+            for (int i = 0; i < rows; i++) {
+                body.putShort((short) store.subject(view == null ? i : view[i], s));
+            }
+        }
+        body.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(headerSize(VERSION));
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) subjects)
+                .putInt(rows).putInt(strings).putLong(bodyLen).putInt((int) crc.getValue()).putInt(0)
+                .putLong(seq);
+        header.flip();
+
+        // 先完整写入临时文件并落盘, 再原子替换, 任何时刻崩溃都保留一份完整快照
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] parts = {header, body};
+            while (body.hasRemaining()) ch.write(parts);
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // 校验全部通过后才写入Manager, 失败时不留下半份数据
+    // 映射随Arena关闭立即解除, 不等GC; 否则Windows上之后写快照时无法原子替换仍被映射的文件
+    public static Info load(Path path, Manager mgr) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            long size = ch.size();
+            if (size < headerSize((short) 1) || size > Integer.MAX_VALUE) throw new IOException("快照文件大小异常");
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size, arena).asByteBuffer();
+            if (buf.getInt(0) != MAGIC) throw new IOException("不是成绩快照文件");
+            short version = buf.getShort(4);
+            if (version < 1 || version > VERSION) throw new IOException("不支持的快照版本: " + version);
+            int subjects = mgr.schema().subjects();
+            if (buf.getShort(6) != subjects) throw new IOException("科目数与schema不匹配");
+            int header = headerSize(version);
+            int rows = buf.getInt(8);
+            int strings = buf.getInt(12);
+            long bodyLen = buf.getLong(16);
+            if (header + bodyLen != size) throw new IOException("快照不完整");
+            long seq = version == 1 ? 0 : buf.getLong(32);
+
+            ByteBuffer body = buf.slice(header, (int) bodyLen);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buf.getInt(24)) throw new IOException("快照校验失败");
+
+            int data = 4 * (strings + 1);
+            String[] table = new String[strings];
+            byte[] tmp = new byte[64];
+            for (int k = 0; k < strings; k++) {
+                int from = body.getInt(4 * k), len = body.getInt(4 * k + 4) - from;
+                if (len > tmp.length) tmp = new byte[len];
+                body.get(data + from, tmp, 0, len);
+                table[k] = new String(tmp, 0, len, StandardCharsets.UTF_8);
+            }
+
+            int ids = data + body.getInt(4 * strings);
+            int names = ids + 4 * rows;
+            int cols = names + 4 * rows;
+            mgr.reserve(rows);
+            for (int i = 0; i < rows; i++) {
+                short[] scores = new short[subjects];
+                for (int s = 0; s < subjects; s++) {
+                    scores[s] = body.getShort(cols + 2 * (s * rows + i));
+                }
+                mgr.tryAdd(table[body.getInt(ids + 4 * i)], table[body.getInt(names + 4 * i)], scores);
+            }
+            return new Info(rows, seq);
+        }
+    }
+}
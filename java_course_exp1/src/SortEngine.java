@@ -0,0 +1,64 @@
+import java.util.*;
+
+// O(n log n)排序引擎: 结果为行号视图, 不移动存储; 每种排序结果缓存到数据变化为止
+class SortEngine {
+    public static final int BY_ID = -1;
+    public static final int BY_NAME = -2;
+    private static final int PARALLEL_THRESHOLD = 1 << 13; // 超过此规模使用并行排序
+
+    private final StudentStore store;
+    private final HashMap<SortKey, int[]> cache = new HashMap<>();
+    private long cachedVersion = -1;
+
+    public SortEngine(StudentStore store) {
+        this.store = store;
+    }
+
+    public int[] order(SortKey key) {
+        if (cachedVersion != store.version()) {
+            cache.clear();
+            cachedVersion = store.version();
+        }
+        return cache.computeIfAbsent(key, this::sort);
+    }
+
+    private int[] sort(SortKey key) {
+        return key.dim() >= 0 ? sortByScore(key.dim(), key.desc()) : sortByText(key.dim(), key.desc());
+    }
+
+    // 分数与行号打包为long: 高32位为(可取反的)分数, 低32位为行号, 相同分数保持原顺序
+    private int[] sortByScore(int dim, boolean desc) {
+        int n = store.size();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            int score = store.score(i, dim);
+            keys[i] = ((long) (desc ? -score : score) << 32) | i;
+        }
+        if (n >= PARALLEL_THRESHOLD) Arrays.parallelSort(keys);
+        else Arrays.sort(keys);
+
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    private int[] sortByText(int dim, boolean desc) {
+        int n = store.size();
+        String[] text = new String[n];
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            text[i] = dim == BY_ID ? store.id(i) : store.name(i);
+            boxed[i] = i;
+        }
+        Comparator<Integer> cmp = (a, b) -> text[a].compareTo(text[b]);
+        Arrays.parallelSort(boxed, desc ? cmp.reversed() : cmp); // 小规模时自动退化为串行归并, 稳定
+
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = boxed[i];
+        }
+        return rows;
+    }
+}
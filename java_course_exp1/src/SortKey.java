@@ -0,0 +1,2 @@
+// 排序键: 成绩维度编号(或BY_ID/BY_NAME) + 方向
+record SortKey(int dim, boolean desc) {}
@@ -0,0 +1,40 @@
+class Student {
+    private final String id;
+    private final String name;
+    private final short[] scores; // 按科目序号存放
+    private final Schema schema;
+
+    public Student(String i, String n, short[] s, Schema schema) {
+        id = i;
+        name = n;
+        scores = s;
+        this.schema = schema;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public int subject(int s) { return scores[s]; }
+    public short[] scores() { return scores.clone(); }
+
+    public int score(int dim) {
+        return schema.score(scores, dim);
+    }
+
+    public String info() {
+        StringBuilder sb = new StringBuilder(String.format("ID: %-5s 姓名: %-8s ", id, name));
+        for (int s = 0; s < scores.length; s++) {
+            sb.append(String.format("%s: %-3d ", schema.subject(s).name(), scores[s]));
+        }
+        for (int d = 0; d < schema.dims(); d++) {
+            Dimension dim = schema.dim(d);
+            if (dim.derived()) sb.append(String.format("%s: %-4d ", dim.name(), score(d)));
+        }
+        return sb.substring(0, sb.length() - 1);
+    }
+
+    public String toFile() {
+        StringBuilder sb = new StringBuilder(id).append(',').append(name);
+        for (short v : scores) sb.append(',').append(v);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,39 @@
+// 学生存储接口, 以学号建立哈希索引: 查找/判重/修改/删除均为O(1)
+interface StudentStore {
+    int size();
+    long version(); // 每次修改递增, 供缓存判断数据是否变化
+    int indexOf(String id);
+    boolean add(String id, String name, short[] scores);
+    void set(int i, String name, short[] scores); // 原位修改(学号不变)
+    void removeAt(int i); // 用末尾记录填补空位, 避免整体移动
+    void ensureCapacity(int n);
+
+    Schema schema();
+    String id(int i);
+    String name(int i);
+    int subject(int i, int s);
+
+    default int score(int i, int dim) {
+        Dimension d = schema().dim(dim);
+        if (!d.derived()) return subject(i, d.subject());
+        double v = 0;
+        for (int t = 0; t < d.terms().length; t++) {
+            v += d.weights()[t] * subject(i, d.terms()[t]);
+        }
+        return (int) Math.round(v);
+    }
+
+    default short[] scores(int i) {
+        short[] scores = new short[schema().subjects()];
+        for (int s = 0; s < scores.length; s++) scores[s] = (short) subject(i, s);
+        return scores;
+    }
+
+    default Student get(int i) {
+        return new Student(id(i), name(i), scores(i), schema());
+    }
+
+    static StudentStore create(String kind, Schema schema) {
+        return "column".equals(kind) ? new ColumnStore(schema) : new RowStore(schema);
+    }
+}
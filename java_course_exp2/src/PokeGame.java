@@ -1,38 +1,95 @@
 package ouc.cs.java.pokegame;
 
+import java.io.*;
 import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 public class PokeGame implements Action {
+    private final RandomGenerator.SplittableGenerator rng;
+    private final CardPrinter printer;
+
+    public PokeGame() {
+        this(new SplittableRandom());
+    }
+
+    public PokeGame(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    public PokeGame(RandomGenerator.SplittableGenerator rng) {
+        this(rng, new CardPrinter(CardPrinter.Mode.FULL, System.out));
+    }
+
+    public PokeGame(RandomGenerator.SplittableGenerator rng, CardPrinter printer) {
+        this.rng = rng;
+        this.printer = printer;
+    }
+
+    // --simulate ROUNDS [--decks D] [--players P] [--seed S] runs headless; --verify-evaluator checks HandEvaluator
+    // against every 5- and 7-card hand; otherwise one interactive game, shown per --display full|compact|none.
     public static void main(String[] args) {
+        Long seed = null;
+        CardPrinter.Mode mode = CardPrinter.Mode.FULL;
+        long rounds = 0;
+        int decks = 1, players = 4;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--simulate" -> rounds = Long.parseLong(args[++i]);
+                case "--decks" -> decks = Integer.parseInt(args[++i]);
+                case "--players" -> players = Integer.parseInt(args[++i]);
+                case "--display" -> mode = CardPrinter.Mode.valueOf(args[++i].toUpperCase());
+                case "--verify-evaluator" -> {
+                    if (!HandEvaluator.verify(System.out)) System.exit(1);
+                    return;
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (rounds > 0) {
+            Action game = seed == null ? new PokeGame() : new PokeGame(seed);
+            Simulation.run(game, rounds, decks, players).print(System.out);
+            return;
+        }
+        play(seed, mode);
+    }
+
+    private static void play(Long seed, CardPrinter.Mode mode) {
         Scanner sc = new Scanner(System.in);
 
         System.out.print("How many decks of cards are needed? ");
         int decks = sc.nextInt();
 
-        Poke cardSet = new Poke(decks);
-        List<Card> cards = cardSet.getCards();
+        CompactDeck deck = new CompactDeck(decks);
+        List<Card> cards = deck.asList();
 
         System.out.print("How many players in the poker game? ");
         int players = sc.nextInt();
         sc.close();
 
-        Action game = new PokeGame();
-        game.shuffle(cards);
-        List<List<Card>> hands = game.distribute(cards, players);
+        CardPrinter out = new CardPrinter(mode, System.out);
+        Action game = new PokeGame(seed == null ? new SplittableRandom() : new SplittableRandom(seed), out);
+        game.shuffle(deck.codes());
+        Deal deal = game.distribute(deck.codes(), players);
 
-        System.out.println("\nDisplay all cards:");
+        out.line("\nDisplay all cards:");
         game.display(cards);
 
-        System.out.println("\nDisplay cards assigned to each player:");
-        for (int i = 0; i < hands.size(); i++) {
-            List<Card> hand = hands.get(i);
-            Collections.sort(hand);
-            System.out.println("Player " + (i + 1) + ":");
-            game.display(hand);
+        out.line("\nDisplay cards assigned to each player:");
+        for (int i = 0; i < deal.players(); i++) {
+            HandView hand = deal.hand(i);
+            hand.sort();
+            if (mode == CardPrinter.Mode.COMPACT) {
+                out.prefix("Player " + (i + 1) + ": ");
+            } else {
+                out.line("Player " + (i + 1) + ":");
+            }
+            out.cards(hand);
         }
 
-        System.out.println("\nRandomly draw 2 cards from all cards and compare their values:");
-        Random rand = new Random();
+        out.line("\nRandomly draw 2 cards from all cards and compare their values:");
+        RandomGenerator rand = game.random();
         int idx1 = rand.nextInt(cards.size());
         int idx2;
         do {
@@ -41,7 +98,7 @@ public class PokeGame implements Action {
 
         Card c1 = cards.get(idx1);
         Card c2 = cards.get(idx2);
-        System.out.println("Drew: " + c1 + " and " + c2);
+        out.line("Drew: " + c1 + " and " + c2);
 
         int cmp = c1.compareTo(c2);
         String result;
@@ -52,12 +109,24 @@ public class PokeGame implements Action {
         } else {
             result = "Both cards are equal";
         }
-        System.out.println(result);
+        out.line(result);
+        out.flush();
+    }
+
+    @Override
+    public RandomGenerator random() {
+        return rng;
+    }
+
+    // Call from the coordinating thread; the child stream is independent of this one.
+    @Override
+    public Action split() {
+        return new PokeGame(rng.split(), printer);
     }
 
     @Override
     public void shuffle(List<Card> cards) {
-        Collections.shuffle(cards);
+        Collections.shuffle(cards, rng);
     }
 
     @Override
@@ -74,11 +143,11 @@ public class PokeGame implements Action {
         return hands;
     }
 
+    // Buffered within a call, flushed at its end so callers never see output held back.
     @Override
     public void display(List<Card> cards) {
-        for (Card c : cards) {
-            System.out.println(c);
-        }
+        printer.cards(cards);
+        printer.flush();
     }
 }
 
@@ -96,17 +165,38 @@ enum Face {
     public int getValue() { return val; }
 }
 
+// Cards are flyweights: one shared instance per suit/face, addressed by code = suit * 13 + face.
 class Card implements Comparable<Card> {
+    public static final int COUNT = 52;
+    private static final Card[] ALL = new Card[COUNT];
+
+    static {
+        for (Suit s : Suit.values()) {
+            for (Face f : Face.values()) {
+                ALL[s.ordinal() * 13 + f.ordinal()] = new Card(s, f);
+            }
+        }
+    }
+
     private final Suit suit;
     private final Face face;
+    private final String name;
 
-    public Card(Suit s, Face f) {
+    private Card(Suit s, Face f) {
         suit = s;
         face = f;
+        name = f + " of " + s;
     }
 
+    public static Card of(int code) { return ALL[code]; }
+    public static Card of(Suit s, Face f) { return ALL[s.ordinal() * 13 + f.ordinal()]; }
+
+    public static int faceOf(int code) { return code % 13; }
+    public static int suitOf(int code) { return code / 13; }
+
     public Suit getSuit() { return suit; }
     public Face getFace() { return face; }
+    public int code() { return suit.ordinal() * 13 + face.ordinal(); }
 
     @Override
     public int compareTo(Card other) {
@@ -115,7 +205,7 @@ class Card implements Comparable<Card> {
 
     @Override
     public String toString() {
-        return face + " of " + suit;
+        return name;
     }
 }
 
@@ -130,7 +220,7 @@ class Poke {
         for (int d = 0; d < decks; d++) {
             for (Suit s : Suit.values()) {
                 for (Face f : Face.values()) {
-                    cards.add(new Card(s, f));
+                    cards.add(Card.of(s, f));
                 }
             }
         }
@@ -141,8 +231,559 @@ class Poke {
     }
 }
 
+// Primitive deck: one byte code per card, refilled in place so repeated builds and deals allocate nothing.
+class CompactDeck {
+    private static final byte[] ORDERED = new byte[Card.COUNT];
+
+    static {
+        for (int i = 0; i < Card.COUNT; i++) {
+            ORDERED[i] = (byte) i;
+        }
+    }
+
+    private final int decks;
+    private final byte[] codes;
+
+    public CompactDeck(int decks) {
+        this.decks = decks;
+        this.codes = new byte[decks * Card.COUNT];
+        reset();
+    }
+
+    public void reset() {
+        for (int d = 0; d < decks; d++) {
+            System.arraycopy(ORDERED, 0, codes, d * Card.COUNT, Card.COUNT);
+        }
+    }
+
+    public int decks() { return decks; }
+    public int size() { return codes.length; }
+    public int code(int i) { return codes[i]; }
+    public Card card(int i) { return Card.of(codes[i]); }
+    public byte[] codes() { return codes; }
+
+    public static int handSize(int cards, int players, int player) {
+        return cards / players + (player < cards % players ? 1 : 0);
+    }
+
+    // Fixed-size List<Card> view backed by the codes, for use with Action; set writes through, so
+    // Action.shuffle(List) works on it.
+    public List<Card> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Card get(int i) { return Card.of(codes[i]); }
+
+            @Override
+            public Card set(int i, Card card) {
+                Card old = Card.of(codes[i]);
+                codes[i] = (byte) card.code();
+                return old;
+            }
+
+            @Override
+            public int size() { return codes.length; }
+        };
+    }
+}
+
+// Headless Monte Carlo: each round shuffles, deals round-robin, scores every hand (sum of face values)
+// and compares two randomly drawn cards. Rounds are split into fixed chunks, each with its own deck buffer
+// and an RNG split off in advance, so results for a given seed do not depend on thread scheduling.
+class Simulation {
+    private static final long CHUNK = 1 << 14;
+
+    private final int players;
+    private final long[][] values; // values[player][hand value] = rounds
+    private long rounds, firstWins, secondWins, ties;
+    private long nanos;
+
+    private Simulation(int players, int maxValue) {
+        this.players = players;
+        this.values = new long[players][maxValue + 1];
+    }
+
+    public static Simulation run(Action game, long rounds, int decks, int players) {
+        int cards = decks * Card.COUNT;
+        if (players < 1 || players > cards) throw new IllegalArgumentException("Need 1.." + cards + " players");
+        int maxValue = CompactDeck.handSize(cards, players, 0) * 13;
+        int chunks = (int) ((rounds + CHUNK - 1) / CHUNK);
+        Action[] streams = new Action[chunks];
+        for (int c = 0; c < chunks; c++) {
+            streams[c] = game.split();
+        }
+
+        long start = System.nanoTime();
+        Simulation total = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    Simulation part = new Simulation(players, maxValue);
+                    part.play(streams[c], new CompactDeck(decks), Math.min(CHUNK, rounds - c * CHUNK));
+                    return part;
+                })
+                .reduce(Simulation::merge)
+                .orElseGet(() -> new Simulation(players, maxValue));
+        total.nanos = System.nanoTime() - start;
+        return total;
+    }
+
+    private void play(Action game, CompactDeck deck, long n) {
+        byte[] codes = deck.codes();
+        RandomGenerator rng = game.random();
+        for (long r = 0; r < n; r++) {
+            game.shuffle(codes);
+            for (int p = 0; p < players; p++) {
+                int v = 0;
+                for (int i = p; i < codes.length; i += players) {
+                    v += Card.faceOf(codes[i]) + 1;
+                }
+                values[p][v]++;
+            }
+
+            int i1 = rng.nextInt(codes.length);
+            int i2 = rng.nextInt(codes.length - 1);
+            if (i2 >= i1) i2++;
+            int cmp = Integer.compare(Card.faceOf(codes[i1]), Card.faceOf(codes[i2]));
+            if (cmp > 0) firstWins++;
+            else if (cmp < 0) secondWins++;
+            else ties++;
+        }
+        rounds += n;
+    }
+
+    private Simulation merge(Simulation o) {
+        for (int p = 0; p < players; p++) {
+            for (int v = 0; v < values[p].length; v++) {
+                values[p][v] += o.values[p][v];
+            }
+        }
+        rounds += o.rounds;
+        firstWins += o.firstWins;
+        secondWins += o.secondWins;
+        ties += o.ties;
+        return this;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("Rounds: %d in %.2f s (%.0f rounds/sec)%n", rounds, nanos / 1e9, rounds / (nanos / 1e9));
+        out.printf("Two-card draw: first wins %.4f, second wins %.4f, tie %.4f%n",
+                (double) firstWins / rounds, (double) secondWins / rounds, (double) ties / rounds);
+        out.println("Hand value (sum of faces) per player: mean / stddev / p5 / p50 / p95 / min / max");
+        for (int p = 0; p < players; p++) {
+            long[] h = values[p];
+            double sum = 0, sumSq = 0;
+            int min = -1, max = 0;
+            for (int v = 0; v < h.length; v++) {
+                if (h[v] == 0) continue;
+                if (min < 0) min = v;
+                max = v;
+                sum += (double) v * h[v];
+                sumSq += (double) v * v * h[v];
+            }
+            double mean = sum / rounds;
+            out.printf("Player %d: %.2f / %.2f / %d / %d / %d / %d / %d%n", p + 1, mean,
+                    Math.sqrt(Math.max(0, sumSq / rounds - mean * mean)),
+                    percentile(h, 5), percentile(h, 50), percentile(h, 95), min, max);
+        }
+    }
+
+    private int percentile(long[] h, double pct) {
+        long target = Math.max(1, (long) Math.ceil(pct / 100 * rounds));
+        long seen = 0;
+        for (int v = 0; v < h.length; v++) {
+            seen += h[v];
+            if (seen >= target) return v;
+        }
+        return h.length - 1;
+    }
+}
+
+// Hands as views over one shuffled code array, so dealing copies nothing. Hand p holds
+// the cards p, p + players, ... as dealt round-robin at a table.
+class Deal {
+    private final HandView[] hands;
+
+    public Deal(byte[] codes, int players) {
+        hands = new HandView[players];
+        int[] counts = new int[Card.COUNT]; // sort scratch shared by the hands of this deal
+        for (int p = 0; p < players; p++) {
+            hands[p] = new HandView(codes, p, players, CompactDeck.handSize(codes.length, players, p), counts);
+        }
+    }
+
+    public int players() { return hands.length; }
+    public HandView hand(int p) { return hands[p]; }
+}
+
+class HandView {
+    private final byte[] codes;
+    private final int offset, stride, size;
+    private final int[] counts;
+
+    HandView(byte[] codes, int offset, int stride, int size, int[] counts) {
+        this.codes = codes;
+        this.offset = offset;
+        this.stride = stride;
+        this.size = size;
+        this.counts = counts;
+    }
+
+    public int size() { return size; }
+    public int code(int i) { return codes[offset + i * stride]; }
+    public Card card(int i) { return Card.of(code(i)); }
+
+    // Counting sort by face (suit breaks ties), written back into this hand's slots of the backing array.
+    public void sort() {
+        Arrays.fill(counts, 0);
+        for (int i = 0, at = offset; i < size; i++, at += stride) {
+            counts[codes[at]]++;
+        }
+        int at = offset;
+        for (int f = 0; f < 13; f++) {
+            for (int code = f; code < Card.COUNT; code += 13) {
+                for (int n = counts[code]; n > 0; n--, at += stride) {
+                    codes[at] = (byte) code;
+                }
+            }
+        }
+    }
+}
+
+enum HandRank {
+    HIGH_CARD, ONE_PAIR, TWO_PAIR, THREE_OF_A_KIND, STRAIGHT, FLUSH, FULL_HOUSE, FOUR_OF_A_KIND, STRAIGHT_FLUSH;
+
+    public static HandRank of(int value) { return values()[value >>> 20]; }
+}
+
+// Poker hand values from lookup tables; a larger value is a better hand. Value = category << 20 | five 4-bit ranks
+// (2 = 0 .. ACE = 12). Flushes index FLUSH by the 13-bit rank mask of the flush suit. Everything else indexes
+// NON_FLUSH by a perfect hash of the rank counts: the counts are summed as 3-bit fields, then ranked among all
+// multisets of that size (at most 4 per rank) with the PREFIX table, one read per rank.
+class HandEvaluator {
+    private static final int[] RANK = new int[Card.COUNT];
+    private static final int[] BIT = new int[Card.COUNT];
+    private static final long[] COUNT_FIELD = new long[Card.COUNT];
+    private static final int[] SUIT_FIELD = new int[Card.COUNT];
+    private static final int[] FLUSH = new int[1 << 13];
+    private static final int[][] NON_FLUSH = new int[8][];
+    private static final int[] PREFIX = new int[13 * 8 * 5]; // [rank][cards left][count]: multisets ranked before
+
+    static {
+        for (int code = 0; code < Card.COUNT; code++) {
+            int r = (Card.faceOf(code) + 12) % 13;
+            RANK[code] = r;
+            BIT[code] = 1 << r;
+            COUNT_FIELD[code] = 1L << (3 * r);
+            SUIT_FIELD[code] = 1 << (4 * Card.suitOf(code));
+        }
+
+        int[][] ways = new int[14][8]; // ways[ranks][cards]: count vectors with each entry <= 4
+        ways[0][0] = 1;
+        for (int i = 1; i <= 13; i++) {
+            for (int m = 0; m < 8; m++) {
+                for (int c = 0; c <= Math.min(4, m); c++) ways[i][m] += ways[i - 1][m - c];
+            }
+        }
+        for (int i = 0; i < 13; i++) {
+            for (int m = 0; m < 8; m++) {
+                for (int c = 1; c <= 4 && c <= m; c++) {
+                    PREFIX[(i * 8 + m) * 5 + c] = PREFIX[(i * 8 + m) * 5 + c - 1] + ways[i][m - c + 1];
+                }
+            }
+        }
+
+        for (int mask = 0; mask < FLUSH.length; mask++) {
+            if (Integer.bitCount(mask) >= 5) FLUSH[mask] = flushValue(mask);
+        }
+        for (int n = 5; n <= 7; n++) {
+            NON_FLUSH[n] = new int[ways[13][n]];
+            fill(new int[13], 12, n, n);
+        }
+    }
+
+    public static int eval5(int a, int b, int c, int d, int e) {
+        int s = SUIT_FIELD[a];
+        if ((SUIT_FIELD[b] & SUIT_FIELD[c] & SUIT_FIELD[d] & SUIT_FIELD[e] & s) != 0) {
+            return FLUSH[BIT[a] | BIT[b] | BIT[c] | BIT[d] | BIT[e]];
+        }
+        return NON_FLUSH[5][index(COUNT_FIELD[a] + COUNT_FIELD[b] + COUNT_FIELD[c] + COUNT_FIELD[d] + COUNT_FIELD[e], 5)];
+    }
+
+    // Best five of seven. Seven cards hold at most one flush suit, and no quads or full house can coexist with it.
+    public static int eval7(int a, int b, int c, int d, int e, int f, int g) {
+        int suits = SUIT_FIELD[a] + SUIT_FIELD[b] + SUIT_FIELD[c] + SUIT_FIELD[d] + SUIT_FIELD[e] + SUIT_FIELD[f] + SUIT_FIELD[g];
+        int flush = (suits + 0x3333) & 0x8888; // bit 3 of a 4-bit suit count is set once the count reaches 5
+        if (flush != 0) {
+            int suit = Integer.numberOfTrailingZeros(flush) >>> 2;
+            int mask = 0;
+            if (Card.suitOf(a) == suit) mask |= BIT[a];
+            if (Card.suitOf(b) == suit) mask |= BIT[b];
+            if (Card.suitOf(c) == suit) mask |= BIT[c];
+            if (Card.suitOf(d) == suit) mask |= BIT[d];
+            if (Card.suitOf(e) == suit) mask |= BIT[e];
+            if (Card.suitOf(f) == suit) mask |= BIT[f];
+            if (Card.suitOf(g) == suit) mask |= BIT[g];
+            return FLUSH[mask];
+        }
+        return NON_FLUSH[7][index(COUNT_FIELD[a] + COUNT_FIELD[b] + COUNT_FIELD[c] + COUNT_FIELD[d]
+                + COUNT_FIELD[e] + COUNT_FIELD[f] + COUNT_FIELD[g], 7)];
+    }
+
+    public static int evaluate(List<Card> cards) {
+        int[] c = new int[cards.size()];
+        for (int i = 0; i < c.length; i++) c[i] = cards.get(i).code();
+        return switch (c.length) {
+            case 5 -> eval5(c[0], c[1], c[2], c[3], c[4]);
+            case 7 -> eval7(c[0], c[1], c[2], c[3], c[4], c[5], c[6]);
+            default -> throw new IllegalArgumentException("Need 5 or 7 cards, got " + c.length);
+        };
+    }
+
+    private static int index(long counts, int n) {
+        int idx = 0;
+        for (int i = 12; n > 0; i--) {
+            int c = (int) (counts >>> (3 * i)) & 7;
+            idx += PREFIX[(i * 8 + n) * 5 + c];
+            n -= c;
+        }
+        return idx;
+    }
+
+    private static void fill(int[] counts, int rank, int left, int n) {
+        if (rank < 0) {
+            if (left > 0) return;
+            long packed = 0;
+            for (int r = 0; r < 13; r++) packed += (long) counts[r] << (3 * r);
+            NON_FLUSH[n][index(packed, n)] = countsValue(counts);
+            return;
+        }
+        for (int c = 0; c <= Math.min(4, left); c++) {
+            counts[rank] = c;
+            fill(counts, rank - 1, left - c, n);
+        }
+        counts[rank] = 0;
+    }
+
+    private static int value(HandRank rank, int... kickers) {
+        int v = rank.ordinal();
+        for (int i = 0; i < 5; i++) v = v << 4 | (i < kickers.length ? kickers[i] : 0);
+        return v;
+    }
+
+    // Highest rank of a five-long run in mask, the wheel A-2-3-4-5 counting as five high; -1 if none.
+    private static int straightTop(int mask) {
+        int m = mask << 1 | (mask >>> 12 & 1); // bit 0 stands for a low ace
+        for (int top = 13; top >= 4; top--) {
+            if ((m >>> (top - 4) & 0x1F) == 0x1F) return top - 1;
+        }
+        return -1;
+    }
+
+    private static int[] highest(int mask, int n) {
+        int[] ranks = new int[n];
+        for (int r = 12, i = 0; r >= 0 && i < n; r--) {
+            if ((mask >>> r & 1) != 0) ranks[i++] = r;
+        }
+        return ranks;
+    }
+
+    private static int flushValue(int mask) {
+        int top = straightTop(mask);
+        if (top >= 0) return value(HandRank.STRAIGHT_FLUSH, top);
+        return value(HandRank.FLUSH, highest(mask, 5));
+    }
+
+    private static int countsValue(int[] counts) {
+        int present = 0, quad = -1, trip = -1, trip2 = -1, pair = -1, pair2 = -1;
+        for (int r = 12; r >= 0; r--) {
+            if (counts[r] > 0) present |= 1 << r;
+            if (counts[r] == 4 && quad < 0) quad = r;
+            else if (counts[r] == 3) {
+                if (trip < 0) trip = r;
+                else if (trip2 < 0) trip2 = r;
+            } else if (counts[r] == 2) {
+                if (pair < 0) pair = r;
+                else if (pair2 < 0) pair2 = r;
+            }
+        }
+        if (quad >= 0) return value(HandRank.FOUR_OF_A_KIND, quad, highest(present & ~(1 << quad), 1)[0]);
+        if (trip >= 0 && (trip2 >= 0 || pair >= 0)) return value(HandRank.FULL_HOUSE, trip, Math.max(trip2, pair));
+        int top = straightTop(present);
+        if (top >= 0) return value(HandRank.STRAIGHT, top);
+        if (trip >= 0) {
+            int[] k = highest(present & ~(1 << trip), 2);
+            return value(HandRank.THREE_OF_A_KIND, trip, k[0], k[1]);
+        }
+        if (pair2 >= 0) {
+            return value(HandRank.TWO_PAIR, pair, pair2, highest(present & ~(1 << pair) & ~(1 << pair2), 1)[0]);
+        }
+        if (pair >= 0) {
+            int[] k = highest(present & ~(1 << pair), 3);
+            return value(HandRank.ONE_PAIR, pair, k[0], k[1], k[2]);
+        }
+        return value(HandRank.HIGH_CARD, highest(present, 5));
+    }
+
+    // Exhaustive check against the published category counts for all 5-card and 7-card hands,
+    // plus eval7 against the best eval5 of all 21 subsets on sampled hands.
+    public static boolean verify(PrintStream out) {
+        long[] five = {1302540, 1098240, 123552, 54912, 10200, 5108, 3744, 624, 40};
+        long[] seven = {23294460, 58627800, 31433400, 6461620, 6180020, 4047644, 3473184, 224848, 41584};
+        boolean ok = true;
+
+        long[] got = new long[9];
+        BitSet distinct = new BitSet();
+        for (int a = 0; a < 52; a++)
+            for (int b = a + 1; b < 52; b++)
+                for (int c = b + 1; c < 52; c++)
+                    for (int d = c + 1; d < 52; d++)
+                        for (int e = d + 1; e < 52; e++) {
+                            int v = eval5(a, b, c, d, e);
+                            got[v >>> 20]++;
+                            distinct.set(v);
+                        }
+        ok &= report(out, "5-card", got, five);
+        out.println("distinct 5-card values: " + distinct.cardinality() + " (expected 7462)");
+        ok &= distinct.cardinality() == 7462;
+
+        long[] got7 = new long[9];
+        for (int a = 0; a < 52; a++)
+            for (int b = a + 1; b < 52; b++)
+                for (int c = b + 1; c < 52; c++)
+                    for (int d = c + 1; d < 52; d++)
+                        for (int e = d + 1; e < 52; e++)
+                            for (int f = e + 1; f < 52; f++)
+                                for (int g = f + 1; g < 52; g++) got7[eval7(a, b, c, d, e, f, g) >>> 20]++;
+        ok &= report(out, "7-card", got7, seven);
+
+        SplittableRandom rng = new SplittableRandom(1);
+        int[] h = new int[7];
+        int mismatches = 0;
+        for (int t = 0; t < 1_000_000; t++) {
+            long used = 0;
+            for (int i = 0; i < 7; i++) {
+                int code;
+                do code = rng.nextInt(52); while ((used >>> code & 1) != 0);
+                used |= 1L << code;
+                h[i] = code;
+            }
+            int best = 0;
+            for (int skip1 = 0; skip1 < 7; skip1++) {
+                for (int skip2 = skip1 + 1; skip2 < 7; skip2++) {
+                    int[] p = new int[5];
+                    for (int i = 0, n = 0; i < 7; i++) if (i != skip1 && i != skip2) p[n++] = h[i];
+                    best = Math.max(best, eval5(p[0], p[1], p[2], p[3], p[4]));
+                }
+            }
+            if (best != eval7(h[0], h[1], h[2], h[3], h[4], h[5], h[6])) mismatches++;
+        }
+        out.println("eval7 vs best-of-21 eval5 mismatches: " + mismatches + " / 1000000");
+        ok &= mismatches == 0;
+        out.println(ok ? "HandEvaluator OK" : "HandEvaluator FAILED");
+        return ok;
+    }
+
+    private static boolean report(PrintStream out, String label, long[] got, long[] expected) {
+        boolean ok = Arrays.equals(got, expected);
+        out.println(label + " hands by category" + (ok ? "" : " (MISMATCH)") + ":");
+        for (HandRank r : HandRank.values()) {
+            out.printf("  %-16s %10d  expected %10d%n", r, got[r.ordinal()], expected[r.ordinal()]);
+        }
+        return ok;
+    }
+}
+
+// Card output through one buffered writer, flushed by the caller. FULL prints a card name per line, COMPACT one
+// line of short names (e.g. "10H QS AC") per call, NONE discards everything for benchmark runs.
+class CardPrinter implements Flushable {
+    enum Mode { FULL, COMPACT, NONE }
+
+    private static final String[] SHORT = new String[Card.COUNT];
+    private static final String[] FACES = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
+
+    static {
+        for (int code = 0; code < Card.COUNT; code++) {
+            SHORT[code] = FACES[Card.faceOf(code)] + "HDCS".charAt(Card.suitOf(code));
+        }
+    }
+
+    private final Mode mode;
+    private final PrintWriter out;
+
+    public CardPrinter(Mode mode, OutputStream os) {
+        this.mode = mode;
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(os), 1 << 16), false);
+    }
+
+    public Mode mode() { return mode; }
+
+    public void line(String s) {
+        if (mode != Mode.NONE) out.println(s);
+    }
+
+    // Text placed before the next compact line.
+    public void prefix(String s) {
+        if (mode != Mode.NONE) out.print(s);
+    }
+
+    public void cards(List<Card> cards) {
+        switch (mode) {
+            case FULL -> {
+                for (Card c : cards) out.println(c.toString());
+            }
+            case COMPACT -> {
+                for (int i = 0; i < cards.size(); i++) {
+                    if (i > 0) out.print(' ');
+                    out.print(SHORT[cards.get(i).code()]);
+                }
+                out.println();
+            }
+            case NONE -> { }
+        }
+    }
+
+    public void cards(HandView hand) {
+        switch (mode) {
+            case FULL -> {
+                for (int i = 0; i < hand.size(); i++) out.println(hand.card(i).toString());
+            }
+            case COMPACT -> {
+                for (int i = 0; i < hand.size(); i++) {
+                    if (i > 0) out.print(' ');
+                    out.print(SHORT[hand.code(i)]);
+                }
+                out.println();
+            }
+            case NONE -> { }
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
+
 interface Action {
+    RandomGenerator random();
+    Action split();
+
     void shuffle(List<Card> cards);
+
+    // In-place Fisher-Yates; reproducible for a given seed.
+    default void shuffle(byte[] cards) {
+        RandomGenerator rng = random();
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            byte t = cards[i];
+            cards[i] = cards[j];
+            cards[j] = t;
+        }
+    }
+
     List<List<Card>> distribute(List<Card> cards, int players);
+
+    default Deal distribute(byte[] codes, int players) {
+        return new Deal(codes, players);
+    }
+
     void display(List<Card> cards);
 }
\ No newline at end of file
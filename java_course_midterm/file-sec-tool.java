@@ -1,5 +1,11 @@
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -7,30 +13,61 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 /**
- * 单文件版文件加解密工具（整合所有功能：GUI、3DES、多线程、配置文件）
+ * 单文件版文件加解密工具（整合所有功能：GUI、AES-GCM/ChaCha20-Poly1305（兼容旧版3DES）、多线程、配置文件）
  * 满足实验全部要求：图形界面、密钥保存、多文件处理、进度显示、日志输出
  */
 public class FileEncryptDecryptTool extends JFrame {
     // 界面组件
     private JTextField keyField; // 密钥输入框
+    private JComboBox<CipherEngine> engineBox; // 加密算法选择
     private JList<File> fileList; // 待处理文件列表
     private JTextArea logArea; // 日志显示域
     private JProgressBar progressBar; // 进度条
     private Vector<File> selectedFiles; // 选中的文件集合
+    private JButton processBtn; // 开始按钮
+    private JButton cancelBtn; // 取消按钮
+    private transient BatchScheduler currentBatch; // 正在运行的批处理（无则为null）
+    private transient Map<File, String> lastStatus = Map.of(); // 上一批处理结束时各文件的状态
 
     // 常量定义
-    private static final String ALGORITHM = "DESede/ECB/PKCS5Padding"; // 3DES算法（带填充，兼容不同环境）
+    private static final String ALGORITHM = "DESede/ECB/PKCS5Padding"; // 旧版3DES算法（仅用于解密没有文件头的旧.enc文件）
     private static final String CONFIG_PATH = "config.properties"; // 配置文件路径
-    private static final int KEY_LENGTH = 24; // 密钥长度（3DES要求24字节）
+    private static final int KEY_LENGTH = 24; // 密钥长度（新格式经PBKDF2派生不限长度，保持24位是为了同一密钥仍能解密旧版3DES文件）
+    private static final int MAX_IO_WORKERS = 4; // 同时读写文件的上限，避免磁盘随机访问过多
+    private static final int REFRESH_MS = 200; // 批处理期间刷新进度的间隔
 
     /**
      * 主方法：程序入口
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--self-test")) {
+            System.exit(selfTest() ? 0 : 1);
+        }
         //  Swing线程安全启动
         SwingUtilities.invokeLater(() -> {
             try {
@@ -42,12 +79,45 @@ public class FileEncryptDecryptTool extends JFrame {
         });
     }
 
+    /**
+     * 自检：每种算法对单块和多块的临时文件各做一次加密，再在同一线程里解密两次并解密一个跨块的片段，检查结果与原文一致
+     */
+    private static boolean selfTest() throws Exception {
+        KeyMaterial keys = new KeyMaterial("self-test-key-0123456789");
+        Random random = new Random(1);
+        boolean ok = true;
+        for (CipherEngine engine : CipherEngine.ALL) {
+            for (int size : new int[]{1000, 3 * CipherStreamer.CHUNK_SIZE + 1}) {
+                byte[] data = new byte[size];
+                random.nextBytes(data);
+                File plain = File.createTempFile("self-test", ".bin");
+                Files.write(plain.toPath(), data);
+                File encrypted = new File(processFile(plain, keys, engine, done -> {}));
+                boolean same = true;
+                for (int round = 0; round < 2; round++) {
+                    File decrypted = new File(processFile(encrypted, keys, null, done -> {}));
+                    same &= Arrays.equals(Files.readAllBytes(decrypted.toPath()), data);
+                    Files.delete(decrypted.toPath());
+                }
+                int from = size / 2, to = Math.min(size, from + CipherStreamer.CHUNK_SIZE);
+                File part = decryptRangeToFile(keys, encrypted, from, to - from);
+                same &= Arrays.equals(Files.readAllBytes(part.toPath()), Arrays.copyOfRange(data, from, to));
+                Files.delete(part.toPath());
+                Files.delete(plain.toPath());
+                Files.delete(encrypted.toPath());
+                System.out.println(engine + "，" + size + " 字节：" + (same ? "通过" : "失败"));
+                ok &= same;
+            }
+        }
+        return ok;
+    }
+
     /**
      * 构造方法：初始化界面和组件
      */
     public FileEncryptDecryptTool() {
         // 窗口基本设置
-        setTitle("文件加解密工具（3DES算法）");
+        setTitle("文件加解密工具（AES-GCM / ChaCha20-Poly1305）");
         setSize(800, 600);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null); // 居中显示
@@ -66,20 +136,40 @@ public class FileEncryptDecryptTool extends JFrame {
         }
         topPanel.add(keyField);
 
+        // 加密算法（解密时按文件头自动识别，无需选择）
+        engineBox = new JComboBox<>(CipherEngine.ALL.toArray(new CipherEngine[0]));
+        topPanel.add(engineBox);
+
         // 选择文件按钮
         JButton selectBtn = new JButton("选择文件");
         selectBtn.addActionListener(new SelectFileListener());
         topPanel.add(selectBtn);
 
         // 加解密按钮（默认禁用，密钥符合要求后启用）
-        JButton processBtn = new JButton("开始加/解密");
+        processBtn = new JButton("开始加/解密");
         processBtn.addActionListener(new ProcessFileListener());
         processBtn.setEnabled(checkKeyValid()); // 校验初始密钥有效性
         topPanel.add(processBtn);
 
+        // 取消按钮（批处理运行时可用）
+        cancelBtn = new JButton("取消");
+        cancelBtn.setEnabled(false);
+        cancelBtn.addActionListener(e -> {
+            if (currentBatch != null) {
+                currentBatch.cancel();
+                logArea.append("正在取消，未开始的文件将被跳过\n");
+            }
+        });
+        topPanel.add(cancelBtn);
+
+        // 解密片段按钮：只解密一个.enc文件中的一段字节
+        JButton rangeBtn = new JButton("解密片段");
+        rangeBtn.addActionListener(new RangeDecryptListener());
+        topPanel.add(rangeBtn);
+
         // 密钥输入框监听：实时校验密钥长度
-        keyField.addActionListener(e -> processBtn.setEnabled(checkKeyValid()));
-        keyField.addCaretListener(e -> processBtn.setEnabled(checkKeyValid()));
+        keyField.addActionListener(e -> processBtn.setEnabled(checkKeyValid() && currentBatch == null));
+        keyField.addCaretListener(e -> processBtn.setEnabled(checkKeyValid() && currentBatch == null));
 
         add(topPanel, BorderLayout.NORTH);
 
@@ -90,6 +180,7 @@ public class FileEncryptDecryptTool extends JFrame {
         selectedFiles = new Vector<>();
         fileList = new JList<>(selectedFiles);
         fileList.setBorder(BorderFactory.createTitledBorder("待处理文件"));
+        fileList.setCellRenderer(new FileProgressRenderer());
         centerPanel.add(new JScrollPane(fileList));
 
         // 日志显示域（带滚动条，不可编辑）
@@ -155,106 +246,919 @@ public class FileEncryptDecryptTool extends JFrame {
             ConfigUtil.saveKey(key);
             logArea.append("密钥已保存至配置文件\n");
 
-            // 为每个文件启动独立线程处理（多线程并发）
-            for (File file : selectedFiles) {
-                new FileProcessThread(file, key).start();
-            }
+            // 交给批处理调度器：有界线程池处理，界面定时刷新总进度和单个文件进度
+            CipherEngine engine = (CipherEngine) engineBox.getSelectedItem();
+            BatchScheduler batch = new BatchScheduler(List.copyOf(selectedFiles), key, engine, new BatchListener() {
+                @Override
+                public void fileStarted(File file) {
+                    SwingUtilities.invokeLater(() -> logArea.append("开始处理文件：" + file.getName() + "\n"));
+                }
+
+                @Override
+                public void fileFinished(File file, String outputPath, Exception error) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (error == null) {
+                            logArea.append("处理成功：" + outputPath + "\n");
+                        } else if (error instanceof CancellationException) {
+                            logArea.append("已取消：" + file.getName() + "\n");
+                        } else {
+                            logArea.append("处理失败：" + file.getName() + "，原因：" + error.getMessage() + "\n");
+                        }
+                    });
+                }
+
+                @Override
+                public void batchFinished(BatchSummary summary) {
+                    SwingUtilities.invokeLater(() -> finishBatch(summary));
+                }
+            });
+            currentBatch = batch;
+            processBtn.setEnabled(false);
+            cancelBtn.setEnabled(true);
+            progressBar.setValue(0);
+            logArea.append("开始批处理：" + selectedFiles.size() + " 个文件，" + batch.workers() + " 个工作线程，加密算法 "
+                    + engine + "\n");
+
+            Timer refresher = new Timer(REFRESH_MS, ev -> refreshProgress(batch));
+            refresher.start();
+            batch.onDone(refresher::stop);
+            batch.start();
         }
     }
 
     /**
-     * 内部类：文件加解密线程（每个文件一个线程，避免界面卡顿）
+     * 内部类：解密片段按钮监听器（只校验并解密覆盖所选范围的块，不必处理整个文件）
      */
-    private class FileProcessThread extends Thread {
-        private File file;
-        private String key;
+    private class RangeDecryptListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            File file = fileList.getSelectedValue();
+            if (file == null && selectedFiles.size() == 1) {
+                file = selectedFiles.get(0);
+            }
+            if (file == null || !file.getName().endsWith(".enc")) {
+                JOptionPane.showMessageDialog(FileEncryptDecryptTool.this, "请在列表中选中一个.enc文件！", "提示", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            if (!checkKeyValid()) {
+                JOptionPane.showMessageDialog(FileEncryptDecryptTool.this, "密钥必须为24位字符！", "提示", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            long offset;
+            int length;
+            try {
+                String offsetText = JOptionPane.showInputDialog(FileEncryptDecryptTool.this, "起始字节（从0开始）：", "0");
+                if (offsetText == null) return;
+                String lengthText = JOptionPane.showInputDialog(FileEncryptDecryptTool.this, "字节数：", "1048576");
+                if (lengthText == null) return;
+                offset = Long.parseLong(offsetText.trim());
+                length = Integer.parseInt(lengthText.trim());
+                if (offset < 0 || length < 0) throw new NumberFormatException();
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(FileEncryptDecryptTool.this, "请输入非负整数！", "提示", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
 
-        public FileProcessThread(File file, String key) {
-            this.file = file;
-            this.key = key;
+            File in = file;
+            KeyMaterial keys = new KeyMaterial(keyField.getText().trim());
+            logArea.append("开始解密片段：" + in.getName() + "，起始 " + offset + "，长度 " + length + "\n");
+            // PBKDF2和读文件都不能放在事件线程里
+            Thread worker = new Thread(() -> {
+                String message;
+                try {
+                    File out = decryptRangeToFile(keys, in, offset, length);
+                    message = "片段解密成功（" + out.length() + " 字节）：" + out.getAbsolutePath();
+                } catch (Exception ex) {
+                    message = "片段解密失败：" + in.getName() + "，原因：" + ex.getMessage();
+                }
+                String log = message;
+                SwingUtilities.invokeLater(() -> logArea.append(log + "\n"));
+            }, "range-decrypt");
+            worker.setDaemon(true);
+            worker.start();
         }
+    }
+
+    /**
+     * 刷新总进度条和文件列表中的单个文件进度（在事件线程中定时调用）
+     */
+    private void refreshProgress(BatchScheduler batch) {
+        long total = batch.totalBytes();
+        progressBar.setValue(total == 0 ? 100 : (int) (batch.processedBytes() * 100 / total));
+        fileList.repaint();
+    }
+
+    /**
+     * 批处理结束：输出吞吐量汇总并恢复按钮状态
+     */
+    private void finishBatch(BatchSummary s) {
+        refreshProgress(currentBatch);
+        lastStatus = currentBatch.statuses();
+        currentBatch = null;
+        cancelBtn.setEnabled(false);
+        processBtn.setEnabled(checkKeyValid());
+        logArea.append(String.format("批处理完成：成功 %d，失败 %d，取消 %d；共 %.1f MB，用时 %.2f 秒，平均 %.1f MB/s%n",
+                s.succeeded(), s.failed(), s.cancelled(), s.bytes() / 1048576.0, s.nanos() / 1e9, s.mbPerSec()));
+    }
+
+    /**
+     * 内部类：文件列表渲染器（在文件名后显示该文件的处理进度或结果）
+     */
+    private class FileProgressRenderer extends DefaultListCellRenderer {
+        private static final long serialVersionUID = 1L;
 
         @Override
-        public void run() {
-            try {
-                // 1. 读取文件内容
-                logArea.append("开始处理文件：" + file.getName() + "\n");
-                FileInputStream fis = new FileInputStream(file);
-                byte[] fileData = new byte[fis.available()];
-                fis.read(fileData);
-                fis.close();
-
-                // 2. 判断加密/解密模式（.enc后缀为解密，否则为加密）
-                byte[] resultData;
-                String outputPath;
-                boolean isEncrypt = !file.getName().endsWith(".enc");
-
-                if (isEncrypt) {
-                    // 加密：生成.enc后缀文件
-                    resultData = DESUtil.encrypt(fileData, key.getBytes());
-                    outputPath = file.getAbsolutePath() + ".enc";
-                } else {
-                    // 解密：去掉.enc后缀，添加时间戳避免覆盖
-                    resultData = DESUtil.decrypt(fileData, key.getBytes());
-                    String originalName = file.getName().substring(0, file.getName().lastIndexOf(".enc"));
-                    outputPath = file.getParent() + File.separator + System.currentTimeMillis() + "-" + originalName;
-                }
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            File file = (File) value;
+            String status = currentBatch == null ? lastStatus.get(file) : currentBatch.status(file);
+            setText(status == null ? file.getPath() : file.getPath() + "  [" + status + "]");
+            return this;
+        }
+    }
+
+    /**
+     * 批处理事件回调（在工作线程中调用，界面更新需转到事件线程）
+     */
+    private interface BatchListener {
+        void fileStarted(File file);
+
+        /**
+         * error为null表示成功，为CancellationException表示被取消
+         */
+        void fileFinished(File file, String outputPath, Exception error);
+
+        void batchFinished(BatchSummary summary);
+    }
+
+    /**
+     * 批处理结果汇总
+     */
+    private record BatchSummary(int succeeded, int failed, int cancelled, long bytes, long nanos) {
+        double mbPerSec() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 / (nanos / 1e9);
+        }
+    }
+
+    /**
+     * 静态内部类：批处理调度器（有界线程池 + 有界队列）
+     * 调度线程每提交一个任务先取得一个名额，名额数 = 工作线程数 + 队列容量；队列满时调度线程阻塞，形成背压，
+     * 因此无论选择多少文件，同时存在的任务数和线程数都有上限
+     */
+    private static class BatchScheduler {
+        private final List<File> files;
+        private final KeyMaterial keys;
+        private final CipherEngine engine;
+        private final BatchListener listener;
+        private final int workers;
+        private final ThreadPoolExecutor pool;
+        private final Semaphore slots;
+        private final long totalBytes;
+        private final AtomicLong processedBytes = new AtomicLong();
+        private final ConcurrentHashMap<File, String> status = new ConcurrentHashMap<>();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger cancelledCount = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Runnable onDone = () -> {};
 
-                // 3. 写入处理结果到文件（更新进度条）
-                FileOutputStream fos = new FileOutputStream(outputPath);
-                // 分块写入，更新进度（模拟大文件进度显示）
-                int blockSize = 1024 * 10; // 10KB/块
-                int totalBlocks = (fileData.length + blockSize - 1) / blockSize;
-                int currentBlock = 0;
-
-                for (int i = 0; i < resultData.length; i += blockSize) {
-                    int writeSize = Math.min(blockSize, resultData.length - i);
-                    fos.write(resultData, i, writeSize);
-                    currentBlock++;
-                    int progress = (currentBlock * 100) / totalBlocks;
-                    // Swing线程安全更新进度条
-                    SwingUtilities.invokeLater(() -> progressBar.setValue(progress));
+        public BatchScheduler(List<File> files, String key, CipherEngine engine, BatchListener listener) {
+            this.files = files;
+            this.keys = new KeyMaterial(key);
+            this.engine = engine;
+            this.listener = listener;
+            this.workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_IO_WORKERS));
+            int queueCapacity = workers * 2;
+            // 名额在任务结束时归还，此刻工作线程可能尚未取下一个任务，队列按名额总数分配才不会拒绝提交
+            this.pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(workers + queueCapacity), r -> {
+                        Thread t = new Thread(r, "file-worker");
+                        t.setDaemon(true);
+                        return t;
+                    });
+            this.slots = new Semaphore(workers + queueCapacity);
+            long sum = 0;
+            for (File f : files) {
+                sum += f.length();
+                status.put(f, "等待");
+            }
+            this.totalBytes = sum;
+        }
+
+        public int workers() { return workers; }
+        public long totalBytes() { return totalBytes; }
+        public long processedBytes() { return processedBytes.get(); }
+        public String status(File file) { return status.get(file); }
+        public Map<File, String> statuses() { return Map.copyOf(status); }
+
+        /**
+         * 批处理结束（含取消）后执行的动作
+         */
+        public void onDone(Runnable action) {
+            this.onDone = action;
+        }
+
+        /**
+         * 在独立的调度线程中逐个提交任务，不阻塞界面线程
+         */
+        public void start() {
+            Thread dispatcher = new Thread(() -> {
+                long start = System.nanoTime();
+                try {
+                    for (File file : files) {
+                        if (cancelled) {
+                            skip(file);
+                            continue;
+                        }
+                        slots.acquire();
+                        pool.execute(() -> {
+                            try {
+                                run(file);
+                            } finally {
+                                slots.release();
+                            }
+                        });
+                    }
+                    pool.shutdown();
+                    pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
+                onDone.run();
+                listener.batchFinished(new BatchSummary(succeeded.get(), failed.get(), cancelledCount.get(),
+                        processedBytes.get(), System.nanoTime() - start));
+            }, "batch-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
 
-                fos.close();
-                SwingUtilities.invokeLater(() -> {
-                    progressBar.setValue(100); // 单个文件处理完成，进度条满格
-                    logArea.append((isEncrypt ? "加密" : "解密") + "成功：" + outputPath + "\n");
-                });
+        /**
+         * 取消：未开始的文件直接跳过，进行中的文件在下一块处理前中止并删除不完整的输出
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void skip(File file) {
+            status.put(file, "已取消");
+            cancelledCount.incrementAndGet();
+            listener.fileFinished(file, null, new CancellationException());
+        }
 
-            } catch (Exception ex) {
-                // 异常信息写入日志（线程安全）
-                SwingUtilities.invokeLater(() -> {
-                    logArea.append("处理失败：" + file.getName() + "，原因：" + ex.getMessage() + "\n");
-                    progressBar.setValue(0);
+        private void run(File file) {
+            if (cancelled) {
+                skip(file);
+                return;
+            }
+            listener.fileStarted(file);
+            long size = file.length();
+            long[] reported = {0};
+            try {
+                String outputPath = processFile(file, keys, engine, done -> {
+                    if (cancelled) throw new CancellationException();
+                    processedBytes.addAndGet(done - reported[0]);
+                    reported[0] = done;
+                    status.put(file, size == 0 ? "100%" : (done * 100 / size) + "%");
                 });
-                ex.printStackTrace();
+                status.put(file, "完成");
+                succeeded.incrementAndGet();
+                listener.fileFinished(file, outputPath, null);
+            } catch (CancellationException e) {
+                status.put(file, "已取消");
+                cancelledCount.incrementAndGet();
+                listener.fileFinished(file, null, e);
+            } catch (Exception e) {
+                status.put(file, "失败");
+                failed.incrementAndGet();
+                listener.fileFinished(file, null, e);
             }
         }
     }
 
     /**
-     * 静态内部类：3DES加解密工具类（核心算法封装）
+     * 加/解密单个文件（.enc后缀为解密，否则用engine加密），返回输出文件路径
+     * 解密时有文件头的按头中记录的算法解密，没有文件头的按旧版3DES解密
+     * 分块流式处理，每处理完一块以已读入的字节数回调progress
+     */
+    private static String processFile(File file, KeyMaterial keys, CipherEngine engine, LongConsumer progress)
+            throws Exception {
+        String outputPath;
+        boolean isEncrypt = !file.getName().endsWith(".enc");
+
+        if (isEncrypt) {
+            // 加密：生成.enc后缀文件
+            outputPath = file.getAbsolutePath() + ".enc";
+        } else {
+            // 解密：去掉.enc后缀，添加时间戳避免覆盖
+            String originalName = file.getName().substring(0, file.getName().lastIndexOf(".enc"));
+            outputPath = file.getParent() + File.separator + System.currentTimeMillis() + "-" + originalName;
+        }
+
+        File output = new File(outputPath);
+        if (isEncrypt) {
+            AeadContainer.encrypt(engine, keys, file, output, progress);
+        } else if (AeadContainer.isContainer(file)) {
+            AeadContainer.decrypt(keys, file, output, progress);
+        } else {
+            Cipher cipher = DESUtil.newCipher(Cipher.DECRYPT_MODE, keys.desKey());
+            CipherStreamer.process(cipher, file, output, progress);
+        }
+        return outputPath;
+    }
+
+    /**
+     * 解密.enc文件中明文[offset, offset + length)这一段，写到同目录下带时间戳和范围的.part文件，返回该文件
+     */
+    private static File decryptRangeToFile(KeyMaterial keys, File in, long offset, int length) throws Exception {
+        if (!AeadContainer.isContainer(in)) throw new IOException("旧版3DES文件不支持按片段解密");
+        byte[] part = AeadContainer.decryptRange(keys, in, offset, length);
+        String originalName = in.getName().substring(0, in.getName().lastIndexOf(".enc"));
+        File out = new File(in.getParent(), System.currentTimeMillis() + "-" + originalName
+                + "." + offset + "-" + (offset + part.length) + ".part");
+        Files.write(out.toPath(), part);
+        return out;
+    }
+
+    /**
+     * 静态内部类：3DES加解密工具类（旧版.enc文件的算法封装）
      */
     private static class DESUtil {
+        private static final String KEY_ALGORITHM = ALGORITHM.split("/")[0]; // 类加载时拆分一次
+
+        public static SecretKey key(byte[] key) {
+            return new SecretKeySpec(key, KEY_ALGORITHM);
+        }
+
+        /**
+         * 取当前线程缓存的Cipher并初始化（供流式处理使用）
+         */
+        public static Cipher newCipher(int mode, SecretKey key) throws Exception {
+            Cipher cipher = CipherCache.get(ALGORITHM);
+            cipher.init(mode, key);
+            return cipher;
+        }
+    }
+
+    /**
+     * 静态内部类：按线程缓存Cipher实例
+     * Cipher.getInstance要查找安全提供者，开销远大于init；Cipher本身不是线程安全的，
+     * 所以每个线程每种算法只创建一个，每次使用前重新init
+     */
+    private static class CipherCache {
+        private static final ThreadLocal<Map<String, Cipher>> CIPHERS = ThreadLocal.withInitial(HashMap::new);
+
+        public static Cipher get(String transformation) throws GeneralSecurityException {
+            Map<String, Cipher> ciphers = CIPHERS.get();
+            Cipher cipher = ciphers.get(transformation);
+            if (cipher == null) {
+                cipher = Cipher.getInstance(transformation);
+                ciphers.put(transformation, cipher);
+            }
+            return cipher;
+        }
+    }
+
+    /**
+     * 静态内部类：一个批处理的密钥材料（由用户输入的密钥派生，整批只派生一次）
+     * 新格式：主密钥 = PBKDF2-HMAC-SHA256(密钥, 盐, 迭代次数)，盐和迭代次数写在文件头里；
+     * 每个文件的算法密钥 = HKDF-Expand(主密钥, "OUCE file key" + 文件IV)，只需一次HMAC。
+     * 同一批加密的文件共用一个盐，解密时按盐缓存主密钥，因此整批解密也只做一次PBKDF2
+     */
+    private static class KeyMaterial {
+        private static final int PBKDF2_ITERATIONS = 600_000;
+        private static final int MAX_ITERATIONS = 10_000_000; // 解密时拒绝迭代次数异常的文件头
+        private static final int SALT_LENGTH = 16;
+        private static final int KEY_BYTES = 32;
+        private static final byte[] FILE_KEY_INFO = "OUCE file key".getBytes(StandardCharsets.US_ASCII);
+        private static final ThreadLocal<Mac> HMAC = ThreadLocal.withInitial(() -> {
+            try {
+                return Mac.getInstance("HmacSHA256");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        private final String password;
+        private final Map<String, byte[]> masterKeys = new HashMap<>(); // "迭代次数:盐" -> 主密钥
+        private byte[] salt; // 本批加密用的盐，第一次加密时生成
+        private SecretKey desKey;
+        private byte[] v1Key;
+
+        public KeyMaterial(String password) {
+            this.password = password;
+        }
+
+        /**
+         * 本批加密用的盐（整批相同）
+         */
+        public synchronized byte[] salt() {
+            if (salt == null) {
+                salt = new byte[SALT_LENGTH];
+                AeadContainer.RANDOM.nextBytes(salt);
+            }
+            return salt;
+        }
+
+        public int iterations() {
+            return PBKDF2_ITERATIONS;
+        }
+
         /**
-         * 加密方法
+         * 旧版3DES文件的密钥：按UTF-8编码的密钥原文
          */
-        public static byte[] encrypt(byte[] data, byte[] key) throws Exception {
-            SecretKey secretKey = new SecretKeySpec(key, ALGORITHM.split("/")[0]);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            return cipher.doFinal(data);
+        public synchronized SecretKey desKey() {
+            if (desKey == null) {
+                desKey = DESUtil.key(password.getBytes(StandardCharsets.UTF_8));
+            }
+            return desKey;
+        }
+
+        /**
+         * 文件头对应的算法密钥：版本1为密钥原文的SHA-256，版本2为主密钥按文件IV展开
+         */
+        public byte[] fileKey(AeadContainer.Header header) throws GeneralSecurityException {
+            if (header.version() == 1) return v1Key();
+            Mac mac = HMAC.get();
+            mac.init(new SecretKeySpec(masterKey(header.salt(), header.iterations()), "HmacSHA256"));
+            mac.update(FILE_KEY_INFO);
+            mac.update(header.iv());
+            mac.update((byte) 1);
+            return mac.doFinal(); // HKDF-Expand只取第一块，正好32字节
+        }
+
+        private synchronized byte[] v1Key() throws GeneralSecurityException {
+            if (v1Key == null) {
+                v1Key = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            }
+            return v1Key;
         }
 
         /**
-         * 解密方法
+         * PBKDF2很慢（有意如此），同一个盐只算一次；持锁计算，同批其他线程等待结果而不是重复计算
          */
-        public static byte[] decrypt(byte[] data, byte[] key) throws Exception {
-            SecretKey secretKey = new SecretKeySpec(key, ALGORITHM.split("/")[0]);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            return cipher.doFinal(data);
+        private synchronized byte[] masterKey(byte[] salt, int iterations) throws GeneralSecurityException {
+            String id = iterations + ":" + Base64.getEncoder().encodeToString(salt);
+            byte[] master = masterKeys.get(id);
+            if (master == null) {
+                PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BYTES * 8);
+                try {
+                    master = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+                } finally {
+                    spec.clearPassword();
+                }
+                masterKeys.put(id, master);
+            }
+            return master;
+        }
+    }
+
+    /**
+     * 静态内部类：流式加解密（固定大小的直接缓冲区分块经过Cipher.update，内存占用与文件大小无关）
+     */
+    private static class CipherStreamer {
+        private static final int CHUNK_SIZE = 1 << 20; // 每块1MB
+        private static final int SLACK = 64; // 输出缓冲区预留的分组/认证标签余量
+
+        // 每个线程复用一对直接缓冲区，处理多个文件时不重复分配
+        private static final ThreadLocal<ByteBuffer[]> BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer[]{
+                ByteBuffer.allocateDirect(CHUNK_SIZE + SLACK), ByteBuffer.allocateDirect(CHUNK_SIZE + SLACK)});
+
+        /**
+         * 取当前线程的缓冲区对，容量不足capacity时重新分配
+         */
+        public static ByteBuffer[] buffers(int capacity) {
+            ByteBuffer[] buffers = BUFFERS.get();
+            if (buffers[0].capacity() < capacity) {
+                buffers = new ByteBuffer[]{ByteBuffer.allocateDirect(capacity), ByteBuffer.allocateDirect(capacity)};
+                BUFFERS.set(buffers);
+            }
+            return buffers;
+        }
+
+        /**
+         * 把in经cipher处理后写入out，每处理完一块回调已读入的字节数；失败时删除不完整的输出文件
+         */
+        public static long process(Cipher cipher, File in, File out, LongConsumer progress) throws Exception {
+            ByteBuffer[] buffers = BUFFERS.get();
+            ByteBuffer inBuf = buffers[0].clear().limit(CHUNK_SIZE);
+            ByteBuffer outBuf = buffers[1];
+            long done = 0;
+            try (FileChannel src = FileChannel.open(in.toPath(), StandardOpenOption.READ);
+                 FileChannel dst = FileChannel.open(out.toPath(), StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (true) {
+                    inBuf.clear().limit(CHUNK_SIZE);
+                    int n = src.read(inBuf);
+                    if (n < 0) break;
+                    inBuf.flip();
+                    outBuf.clear();
+                    cipher.update(inBuf, outBuf);
+                    write(dst, outBuf);
+                    done += n;
+                    progress.accept(done);
+                }
+                inBuf.clear().limit(0);
+                outBuf.clear();
+                cipher.doFinal(inBuf, outBuf);
+                write(dst, outBuf);
+            } catch (Exception e) {
+                Files.deleteIfExists(out.toPath());
+                throw e;
+            }
+            return done;
+        }
+
+        private static void write(FileChannel dst, ByteBuffer buf) throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                dst.write(buf);
+            }
+        }
+    }
+
+    /**
+     * 认证加密算法（AEAD）引擎：每个实现对应.enc文件头中的一个算法编号
+     */
+    private interface CipherEngine {
+        List<CipherEngine> ALL = List.of(new AesGcmEngine(), new ChaCha20Poly1305Engine());
+
+        /**
+         * 写入文件头的算法编号（已发布的编号不能再改）
+         */
+        int id();
+
+        String name();
+
+        String transformation();
+
+        String keyAlgorithm();
+
+        /**
+         * 由12字节nonce构造Cipher初始化参数
+         */
+        AlgorithmParameterSpec parameters(byte[] nonce);
+
+        /**
+         * 当前线程缓存的Cipher（使用前需重新init）
+         */
+        default Cipher cipher() throws GeneralSecurityException {
+            return CipherCache.get(transformation());
+        }
+
+        default SecretKey key(byte[] raw) {
+            return new SecretKeySpec(raw, keyAlgorithm());
+        }
+
+        /**
+         * 按文件头中的算法编号查找引擎
+         */
+        static CipherEngine byId(int id) throws IOException {
+            for (CipherEngine engine : ALL) {
+                if (engine.id() == id) return engine;
+            }
+            throw new IOException("不支持的加密算法编号：" + id);
+        }
+    }
+
+    /**
+     * 静态内部类：AES-256-GCM引擎（有AES-NI等硬件指令时最快）
+     */
+    private static class AesGcmEngine implements CipherEngine {
+        public int id() { return 1; }
+        public String name() { return "AES-GCM"; }
+        public String transformation() { return "AES/GCM/NoPadding"; }
+        public String keyAlgorithm() { return "AES"; }
+
+        public AlgorithmParameterSpec parameters(byte[] nonce) {
+            return new GCMParameterSpec(AeadContainer.TAG_LENGTH * 8, nonce);
+        }
+
+        @Override
+        public String toString() { return name(); }
+    }
+
+    /**
+     * 静态内部类：ChaCha20-Poly1305引擎（没有AES硬件加速的CPU上更快）
+     */
+    private static class ChaCha20Poly1305Engine implements CipherEngine {
+        public int id() { return 2; }
+        public String name() { return "ChaCha20-Poly1305"; }
+        public String transformation() { return "ChaCha20-Poly1305"; }
+        public String keyAlgorithm() { return "ChaCha20"; }
+
+        public AlgorithmParameterSpec parameters(byte[] nonce) {
+            return new IvParameterSpec(nonce);
+        }
+
+        /**
+         * 不走线程缓存：JDK的ChaCha20-Poly1305拒绝以与上一次相同的密钥和nonce重新init（解密模式也一样），
+         * 而块线程池的线程常驻，缓存的实例会留着上个文件最后一块的密钥和nonce，之后再处理同一文件就会失败
+         */
+        @Override
+        public Cipher cipher() throws GeneralSecurityException {
+            return Cipher.getInstance(transformation());
+        }
+
+        @Override
+        public String toString() { return name(); }
+    }
+
+    /**
+     * 静态内部类：带文件头的分块认证加密格式
+     * 文件 = 文件头（版本1为32字节，版本2为52字节）+ 若干密文块；每块明文chunkSize字节（最后一块可更短，空文件也有一块），
+     * 单独加密并附带16字节认证标签。每块的nonce = 文件IV的后8字节异或块序号，文件头整体作为每块的附加认证数据，
+     * 因此块被调换、截断或文件头被改动都会在解密时被发现；解密时每块通过校验后才写出，内存占用与文件大小无关
+     * 各块互相独立、位置固定，所以大文件的块可以多线程并行处理并按位置写出，也可以只解密其中一段
+     */
+    private static class AeadContainer {
+        private static final byte[] MAGIC = {'O', 'U', 'C', 'E'};
+        private static final int VERSION = 2;
+        private static final int HEADER_LENGTH_V1 = 32; // 魔数4 + 版本1 + 算法1 + 保留2 + 块大小4 + 明文长度8 + IV12
+        private static final int HEADER_LENGTH_V2 = 52; // 版本1的字段 + PBKDF2迭代次数4 + 盐16
+        private static final int NONCE_LENGTH = 12;
+        static final int TAG_LENGTH = 16;
+        private static final int MAX_CHUNK_SIZE = 16 << 20; // 解密时拒绝块大小异常的文件头
+        static final SecureRandom RANDOM = new SecureRandom();
+        private static final int CHUNK_THREADS = Runtime.getRuntime().availableProcessors();
+        // 大文件的块由该线程池并行加/解密；批处理的文件工作线程只负责等待，CPU密集的线程总数不超过核数
+        private static final ExecutorService CHUNK_POOL = Executors.newFixedThreadPool(CHUNK_THREADS, r -> {
+            Thread t = new Thread(r, "chunk-worker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        /**
+         * 文件头（大端序）；版本1没有迭代次数和盐（iterations为0，salt为null）
+         */
+        record Header(int version, CipherEngine engine, int chunkSize, long length, byte[] iv,
+                      int iterations, byte[] salt) {
+            int headerLength() {
+                return version == 1 ? HEADER_LENGTH_V1 : HEADER_LENGTH_V2;
+            }
+
+            long chunks() {
+                return Math.max(1, (length + chunkSize - 1) / chunkSize);
+            }
+
+            /**
+             * 该格式下整个.enc文件应有的字节数
+             */
+            long fileLength() {
+                return headerLength() + length + chunks() * TAG_LENGTH;
+            }
+
+            /**
+             * 第i块密文在.enc文件中的起始位置
+             */
+            long chunkOffset(long i) {
+                return headerLength() + i * (chunkSize + (long) TAG_LENGTH);
+            }
+
+            byte[] encode() {
+                ByteBuffer buf = ByteBuffer.allocate(headerLength());
+                buf.put(MAGIC).put((byte) version).put((byte) engine.id()).putShort((short) 0)
+                        .putInt(chunkSize).putLong(length).put(iv);
+                if (version > 1) {
+                    buf.putInt(iterations).put(salt);
+                }
+                return buf.array();
+            }
+
+            static Header decode(byte[] bytes) throws IOException {
+                ByteBuffer buf = ByteBuffer.wrap(bytes);
+                byte[] magic = new byte[MAGIC.length];
+                buf.get(magic);
+                if (!Arrays.equals(magic, MAGIC)) throw new IOException("不是本工具生成的加密文件");
+                int version = buf.get();
+                if (version < 1 || version > VERSION) throw new IOException("不支持的文件版本：" + version);
+                CipherEngine engine = CipherEngine.byId(buf.get());
+                buf.getShort();
+                int chunkSize = buf.getInt();
+                long length = buf.getLong();
+                if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || length < 0) throw new IOException("文件头已损坏");
+                byte[] iv = new byte[NONCE_LENGTH];
+                buf.get(iv);
+                if (version == 1) return new Header(version, engine, chunkSize, length, iv, 0, null);
+                int iterations = buf.getInt();
+                if (iterations <= 0 || iterations > KeyMaterial.MAX_ITERATIONS) throw new IOException("文件头已损坏");
+                byte[] salt = new byte[KeyMaterial.SALT_LENGTH];
+                buf.get(salt);
+                return new Header(version, engine, chunkSize, length, iv, iterations, salt);
+            }
+        }
+
+        /**
+         * 判断文件是否以本格式的魔数开头（否则按旧版3DES文件处理）
+         */
+        public static boolean isContainer(File file) throws IOException {
+            if (file.length() < HEADER_LENGTH_V1) return false;
+            try (FileInputStream in = new FileInputStream(file)) {
+                return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+            }
+        }
+
+        /**
+         * 第index块的nonce：文件IV的后8字节异或块序号
+         */
+        static byte[] chunkNonce(byte[] iv, long index) {
+            byte[] nonce = iv.clone();
+            for (int i = 0; i < 8; i++) {
+                nonce[NONCE_LENGTH - 1 - i] ^= (byte) (index >>> (8 * i));
+            }
+            return nonce;
+        }
+
+        /**
+         * 用engine加密in写入out，每加密完一块回调已读入的明文字节数；失败时删除不完整的输出文件
+         */
+        public static void encrypt(CipherEngine engine, KeyMaterial keys, File in, File out, LongConsumer progress)
+                throws Exception {
+            byte[] iv = new byte[NONCE_LENGTH];
+            RANDOM.nextBytes(iv);
+            Header header = new Header(VERSION, engine, CipherStreamer.CHUNK_SIZE, in.length(), iv,
+                    keys.iterations(), keys.salt());
+            byte[] aad = header.encode();
+            SecretKey key = engine.key(keys.fileKey(header));
+            try (FileChannel src = FileChannel.open(in.toPath(), StandardOpenOption.READ);
+                 FileChannel dst = FileChannel.open(out.toPath(), StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(dst, ByteBuffer.wrap(aad), 0);
+                forEachChunk(header, 0, progress, (cipher, i, inBuf, outBuf) -> {
+                    long offset = i * header.chunkSize();
+                    int n = (int) Math.min(header.chunkSize(), header.length() - offset);
+                    inBuf.clear().limit(n);
+                    readFully(src, inBuf, offset);
+                    inBuf.flip();
+                    outBuf.clear();
+                    cipher.init(Cipher.ENCRYPT_MODE, key, engine.parameters(chunkNonce(iv, i)));
+                    cipher.updateAAD(aad);
+                    cipher.doFinal(inBuf, outBuf);
+                    writeFully(dst, outBuf.flip(), header.chunkOffset(i));
+                    return n;
+                });
+            } catch (Exception e) {
+                Files.deleteIfExists(out.toPath());
+                throw e;
+            }
+        }
+
+        /**
+         * 按文件头记录的算法解密in写入out，每校验并解密完一块回调已读入的字节数；失败时删除不完整的输出文件
+         */
+        public static void decrypt(KeyMaterial keys, File in, File out, LongConsumer progress) throws Exception {
+            try (FileChannel src = FileChannel.open(in.toPath(), StandardOpenOption.READ);
+                 FileChannel dst = FileChannel.open(out.toPath(), StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Header header = readHeader(src);
+                byte[] aad = header.encode();
+                SecretKey key = header.engine().key(keys.fileKey(header));
+                forEachChunk(header, header.headerLength(), progress, (cipher, i, inBuf, outBuf) -> {
+                    openChunk(header, aad, key, src, i, cipher, inBuf, outBuf);
+                    writeFully(dst, outBuf, i * header.chunkSize());
+                    return inBuf.limit();
+                });
+            } catch (Exception e) {
+                Files.deleteIfExists(out.toPath());
+                throw e;
+            }
+        }
+
+        /**
+         * 随机访问：只解密覆盖明文[offset, offset + length)的那几块，返回这段明文（超出文件末尾的部分被截掉）
+         */
+        public static byte[] decryptRange(KeyMaterial keys, File in, long offset, int length) throws Exception {
+            if (offset < 0 || length < 0) throw new IllegalArgumentException("offset和length不能为负");
+            try (FileChannel src = FileChannel.open(in.toPath(), StandardOpenOption.READ)) {
+                Header header = readHeader(src);
+                byte[] aad = header.encode();
+                long end = Math.min(header.length(), offset + length);
+                if (offset >= end) return new byte[0];
+                SecretKey key = header.engine().key(keys.fileKey(header));
+                Cipher cipher = header.engine().cipher();
+                ByteBuffer[] buffers = CipherStreamer.buffers(header.chunkSize() + TAG_LENGTH);
+                byte[] result = new byte[(int) (end - offset)];
+                for (long i = offset / header.chunkSize(); i * header.chunkSize() < end; i++) {
+                    openChunk(header, aad, key, src, i, cipher, buffers[0], buffers[1]);
+                    long chunkStart = i * header.chunkSize();
+                    long from = Math.max(offset, chunkStart);
+                    long to = Math.min(end, chunkStart + buffers[1].remaining());
+                    buffers[1].position((int) (from - chunkStart));
+                    buffers[1].get(result, (int) (from - offset), (int) (to - from));
+                }
+                return result;
+            }
+        }
+
+        /**
+         * 读入第i块密文并校验、解密到outBuf（返回时outBuf已flip，inBuf的limit为该块密文长度）
+         */
+        private static void openChunk(Header header, byte[] aad, SecretKey key, FileChannel src, long i,
+                                      Cipher cipher, ByteBuffer inBuf, ByteBuffer outBuf) throws Exception {
+            int n = (int) Math.min(header.chunkSize(), header.length() - i * header.chunkSize());
+            inBuf.clear().limit(n + TAG_LENGTH);
+            readFully(src, inBuf, header.chunkOffset(i));
+            inBuf.flip();
+            outBuf.clear();
+            cipher.init(Cipher.DECRYPT_MODE, key, header.engine().parameters(chunkNonce(header.iv(), i)));
+            cipher.updateAAD(aad);
+            try {
+                cipher.doFinal(inBuf, outBuf);
+            } catch (AEADBadTagException e) {
+                throw new AEADBadTagException("密钥错误或文件已被篡改（第" + (i + 1) + "块校验失败）");
+            }
+            outBuf.flip();
+        }
+
+        /**
+         * 读入并解析文件头（先读版本1的长度，版本2再读余下部分），同时检查整个文件长度与文件头是否相符
+         * 文件头重新编码后与原始字节相同，用作每块的附加认证数据
+         */
+        private static Header readHeader(FileChannel src) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH_V2).limit(HEADER_LENGTH_V1);
+            readFully(src, buf, 0);
+            if (buf.get(MAGIC.length) > 1) {
+                buf.limit(HEADER_LENGTH_V2);
+                readFully(src, buf, HEADER_LENGTH_V1);
+            }
+            Header header = Header.decode(Arrays.copyOf(buf.array(), buf.position()));
+            if (src.size() != header.fileLength()) {
+                throw new IOException("加密文件长度不符，可能已被截断");
+            }
+            return header;
+        }
+
+        /**
+         * 处理一块：读入第index块、加/解密后按位置写出，返回读入的字节数
+         */
+        private interface ChunkJob {
+            int process(Cipher cipher, long index, ByteBuffer inBuf, ByteBuffer outBuf) throws Exception;
+        }
+
+        /**
+         * 对所有块执行job：只有一块时在当前线程处理，否则分给块线程池并行处理（各块读写位置互不重叠）
+         * 每个线程用自己的Cipher和缓冲区；progress在锁内按累计字节数回调，因此调用方看到的值单调递增；
+         * 任一块失败（含progress抛出的CancellationException）后其余线程不再领取新块，异常原样抛给调用方
+         */
+        private static void forEachChunk(Header header, long initial, LongConsumer progress, ChunkJob job)
+                throws Exception {
+            long chunks = header.chunks();
+            AtomicLong next = new AtomicLong();
+            AtomicLong done = new AtomicLong(initial);
+            AtomicBoolean failed = new AtomicBoolean();
+            Callable<Void> worker = () -> {
+                Cipher cipher = header.engine().cipher();
+                ByteBuffer[] buffers = CipherStreamer.buffers(header.chunkSize() + TAG_LENGTH);
+                long i;
+                try {
+                    while (!failed.get() && (i = next.getAndIncrement()) < chunks) {
+                        int n = job.process(cipher, i, buffers[0], buffers[1]);
+                        synchronized (progress) {
+                            progress.accept(done.addAndGet(n));
+                        }
+                    }
+                } catch (Exception e) {
+                    failed.set(true);
+                    throw e;
+                }
+                return null;
+            };
+
+            int parallelism = (int) Math.min(chunks, CHUNK_THREADS);
+            if (parallelism <= 1) {
+                worker.call();
+                return;
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int k = 0; k < parallelism; k++) {
+                futures.add(CHUNK_POOL.submit(worker));
+            }
+            Exception error = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (error == null) error = e.getCause() instanceof Exception cause ? cause : e;
+                } catch (InterruptedException e) {
+                    failed.set(true);
+                    if (error == null) error = e;
+                }
+            }
+            if (error != null) throw error;
+        }
+
+        private static void readFully(FileChannel src, ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) {
+                int n = src.read(buf, position);
+                if (n < 0) throw new EOFException("文件在处理过程中被截断");
+                position += n;
+            }
+        }
+
+        private static void writeFully(FileChannel dst, ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) {
+                position += dst.write(buf, position);
+            }
         }
     }
 
@@ -286,7 +1190,7 @@ public class FileEncryptDecryptTool extends JFrame {
             Properties props = new Properties();
             try (FileOutputStream fos = new FileOutputStream(CONFIG_PATH)) {
                 props.setProperty("encrypt.key", key);
-                props.store(fos, "File Encrypt Tool - 3DES Key"); // 配置文件注释
+                props.store(fos, "File Encrypt Tool - Key"); // 配置文件注释
             } catch (Exception e) {
                 e.printStackTrace();
             }